@@ -3,10 +3,20 @@
  */
 package org.example;
 
+import org.example.analytics.OccupancyReport;
+import org.example.entities.ArchivedTicket;
+import org.example.entities.SeatHold;
 import org.example.entities.Train;
 import org.example.entities.User;
+import org.example.service.AdmissionResult;
+import org.example.service.SeatHoldService;
+import org.example.service.TimetableImportResult;
+import org.example.service.TimetableImporter;
 import org.example.service.UserBookingService;
+import java.io.File;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Scanner;
 
@@ -18,8 +28,14 @@ public class App {
         UserBookingService userBookingService = null; // Initialize to null
 
         try {
-            userBookingService = new UserBookingService(); // Initialize the service once
-        } catch (IOException ex) {
+            // Trains and users load in parallel; the menu is usable once the trains are in
+            userBookingService = UserBookingService.start(); // Initialize the service once
+            userBookingService.awaitTrainsReady();
+            // Optional: "--replication-port <port>" streams bookings to replica nodes (see ReplicaNode)
+            if (args.length >= 2 && args[0].equals("--replication-port")) {
+                userBookingService.enableReplication(Integer.parseInt(args[1]));
+            }
+        } catch (IOException | IllegalArgumentException ex) { // e.g. an unsupported -Dbooking.format.<target>
             System.out.println("There is something wrong initializing services: " + ex.getMessage());
             ex.printStackTrace();
             return; // Exit if initial service setup fails
@@ -39,7 +55,11 @@ public class App {
             System.out.println("4. Search Trains");
             System.out.println("5. Book a Seat");
             System.out.println("6. Cancel My Booking");
-            System.out.println("7. Exit the App");
+            System.out.println("7. View Travel History");
+            System.out.println("8. Occupancy Report");
+            System.out.println("9. Confirm or Release a Seat Hold");
+            System.out.println("10. Import a Timetable");
+            System.out.println("11. Exit the App");
             System.out.println("Enter your choice: ");
 
             try {
@@ -160,12 +180,37 @@ public class App {
                         int col = scanner.nextInt();
                         scanner.nextLine(); // Consume newline
 
+                        System.out.println("Book it now, or hold it for checkout? (b/h): ");
+                        if (scanner.nextLine().trim().equalsIgnoreCase("h")) {
+                            SeatHold hold = userBookingService.holdTrainSeat(trainSelectedForBooking, row, col);
+                            if (hold != null) {
+                                System.out.println("Seat held for today's journey. Confirm it from the main menu with hold ID " + hold.getHoldId()
+                                        + " within " + SeatHoldService.DEFAULT_HOLD_TTL.toMinutes() + " minutes.");
+                            }
+                            break;
+                        }
+                        System.out.println("Enter your travel date (yyyy-MM-dd), or leave it blank for today: ");
+                        String travelDateInput = scanner.nextLine().trim();
+                        LocalDate travelDate;
+                        try {
+                            travelDate = travelDateInput.isEmpty() ? LocalDate.now() : LocalDate.parse(travelDateInput);
+                        } catch (DateTimeParseException e) {
+                            System.out.println("Invalid date: " + travelDateInput);
+                            break;
+                        }
                         System.out.println("Attempting to book your seat....");
-                        Boolean booked = userBookingService.bookTrainSeat(trainSelectedForBooking, row, col);
-                        if (booked.equals(Boolean.TRUE)) {
+                        AdmissionResult bookingResult = userBookingService.submitBooking(trainSelectedForBooking, row, col, travelDate);
+                        if (bookingResult.isBooked()) {
                             System.out.println("Booked! Enjoy your journey!");
-                        } else {
+                        } else if (bookingResult.getStatus() == AdmissionResult.Status.FAILED
+                                || bookingResult.getStatus() == AdmissionResult.Status.SOLD_OUT) {
                             System.out.println("Can't book this seat. It might be invalid or already taken.");
+                            System.out.println("Join the waitlist for this train instead? (y/n): ");
+                            if (scanner.nextLine().trim().equalsIgnoreCase("y")) {
+                                userBookingService.joinWaitlist(trainSelectedForBooking, bookSource, bookDest, 0);
+                            }
+                        } else {
+                            System.out.println("Can't book right now: " + bookingResult);
                         }
                         break;
 
@@ -186,12 +231,73 @@ public class App {
                         }
                         break;
 
-                    case 7:
+                    case 7: // Travelled and cancelled journeys, read from the ticket archive
+                        if (userBookingService.getCurrentUser() == null) {
+                            System.out.println("Please log in or sign up first to view your history.");
+                            break;
+                        }
+                        List<ArchivedTicket> history = userBookingService.fetchBookingHistory();
+                        if (history.isEmpty()) {
+                            System.out.println("You have no past or cancelled journeys.");
+                        }
+                        for (ArchivedTicket record : history) {
+                            System.out.println("[" + record.getStatus() + "] " + record.getTicket().getTicketInfo());
+                        }
+                        break;
+
+                    case 8: // Load factors across the live inventory, per train, route and leg
+                        OccupancyReport report = userBookingService.getAnalytics().occupancyReport();
+                        System.out.println("Overall: " + report.getOverall() + " (" + report.getTicketCount()
+                                + " booked tickets, computed in " + report.getComputeMillis() + " ms)");
+                        System.out.println("Busiest trains:");
+                        report.getTrains().stream().limit(5).forEach(train -> System.out.println("  " + train));
+                        System.out.println("Busiest legs:");
+                        report.getLegs().stream().limit(5).forEach(leg -> System.out.println("  " + leg));
+                        System.out.println("Hot routes (last 24h): " + userBookingService.getAnalytics().hotRoutes(24, 5));
+                        break;
+
+                    case 9: // Turn a seat hold into a booking, or give the seat back
+                        if (userBookingService.getCurrentUser() == null) {
+                            System.out.println("Please log in or sign up first to manage your holds.");
+                            break;
+                        }
+                        System.out.println("Enter the Hold ID: ");
+                        String holdId = scanner.nextLine().trim();
+                        System.out.println("Confirm the booking or release the seat? (c/r): ");
+                        if (scanner.nextLine().trim().equalsIgnoreCase("c")) {
+                            if (userBookingService.confirmHold(holdId).equals(Boolean.TRUE)) {
+                                System.out.println("Booked! Enjoy your journey!");
+                            } else {
+                                System.out.println("Failed to confirm the hold.");
+                            }
+                        } else if (userBookingService.releaseHold(holdId).equals(Boolean.TRUE)) {
+                            System.out.println("Hold released.");
+                        } else {
+                            System.out.println("Hold " + holdId + " has expired or belongs to another user.");
+                        }
+                        break;
+
+                    case 10: // Bulk-load a stop_times CSV into the live catalogue
+                        // Merge only: trains are added or retimed, never dropped. Replacing the
+                        // whole catalogue is an offline job (./gradlew runTimetableImport, see build.gradle).
+                        System.out.println("Enter the path of the stop_times CSV: ");
+                        String csvPath = scanner.nextLine().trim();
+                        try {
+                            TimetableImportResult imported = userBookingService.importTimetable(
+                                    new File(csvPath), TimetableImporter.Mode.MERGE);
+                            System.out.println(imported);
+                            imported.getErrors().forEach(error -> System.out.println("  " + error));
+                        } catch (IOException e) {
+                            System.out.println("Could not import " + csvPath + ": " + e.getMessage());
+                        }
+                        break;
+
+                    case 11:
                         System.out.println("Exiting application. Goodbye!");
                         break;
 
                     default:
-                        System.out.println("Invalid option. Please choose between 1 and 7.");
+                        System.out.println("Invalid option. Please choose between 1 and 11.");
                         break;
                 }
             } catch (java.util.InputMismatchException e) {
@@ -204,7 +310,7 @@ public class App {
                 option = 0; // Reset option to re-display menu or handle exit
             }
 
-        } while (option != 7);
+        } while (option != 11);
 
         scanner.close(); // Close the scanner when the application exits
     }
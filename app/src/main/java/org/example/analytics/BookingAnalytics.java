@@ -0,0 +1,264 @@
+package org.example.analytics;
+
+import org.example.entities.SeatChange;
+import org.example.entities.Ticket;
+import org.example.entities.Train;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Occupancy and sales analytics over the live inventory. There are two halves:
+//  - occupancyReport() takes a snapshot (see Snapshot) and computes load factors per train,
+//    route and leg with parallel streams; bookings carry on while it runs.
+//  - recordBooking/recordCancellation keep per-train and per-leg hourly sales counters up to
+//    date as tickets are sold, so sell-through curves and hot routes are cheap to read.
+// The counters start empty when the process starts.
+public class BookingAnalytics {
+
+    private static final int HOURS_KEPT = 48;
+    private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+
+    private static final Comparator<LoadFactor> BUSIEST_FIRST =
+            Comparator.comparingDouble(LoadFactor::getLoadFactor).reversed().thenComparing(LoadFactor::getKey);
+
+    // What a report is computed from. Each train's seat map must be a copy taken under that
+    // train's lock and the tickets a copy taken under the user-list lock; the two may be a few
+    // in-flight bookings apart, but nothing in them changes while the report runs.
+    public static final class Snapshot {
+        private final long takenAt = System.currentTimeMillis();
+        private final List<Train> trains;
+        private final List<Ticket> tickets;
+
+        public Snapshot(List<Train> trains, List<Ticket> tickets) {
+            this.trains = trains;
+            this.tickets = tickets;
+        }
+    }
+
+    // Net sales per hour for the last HOURS_KEPT hours. A slot is reused once its hour has
+    // passed out of the window; an increment racing with that reset may be lost, which is fine
+    // for dashboard figures.
+    private static final class HourlyCounter {
+        private final AtomicLongArray hours = new AtomicLongArray(HOURS_KEPT); // Hour each slot counts
+        private final LongAdder[] counts = new LongAdder[HOURS_KEPT];
+
+        HourlyCounter() {
+            for (int i = 0; i < HOURS_KEPT; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        void add(long nowMillis, long delta) {
+            long hour = nowMillis / HOUR_MILLIS;
+            int slot = (int) (hour % HOURS_KEPT);
+            long counted = hours.get(slot);
+            if (counted < hour && hours.compareAndSet(slot, counted, hour)) {
+                counts[slot].reset();
+            }
+            if (hours.get(slot) == hour) {
+                counts[slot].add(delta);
+            }
+        }
+
+        long get(long hour) {
+            int slot = (int) (hour % HOURS_KEPT);
+            return (hours.get(slot) == hour) ? counts[slot].sum() : 0;
+        }
+    }
+
+    private final Supplier<Snapshot> snapshotSource;
+    private final Function<String, List<List<Integer>>> seatSource; // Copy of one train's seat map
+    private final Map<String, HourlyCounter> salesByTrain = new ConcurrentHashMap<>();
+    private final Map<String, HourlyCounter> salesByLeg = new ConcurrentHashMap<>();
+    private final LongAdder bookings = new LongAdder();
+    private final LongAdder cancellations = new LongAdder();
+
+    public BookingAnalytics(Supplier<Snapshot> snapshotSource, Function<String, List<List<Integer>>> seatSource) {
+        this.snapshotSource = snapshotSource;
+        this.seatSource = seatSource;
+    }
+
+    public void recordBooking(Ticket ticket) {
+        bookings.increment();
+        recordSale(ticket, 1);
+    }
+
+    public void recordCancellation(Ticket ticket) {
+        cancellations.increment();
+        recordSale(ticket, -1);
+    }
+
+    private void recordSale(Ticket ticket, long delta) {
+        long now = System.currentTimeMillis();
+        if (ticket.getTrain() != null) {
+            salesByTrain.computeIfAbsent(ticket.getTrain().getTrainId().toLowerCase(), k -> new HourlyCounter()).add(now, delta);
+        }
+        if (ticket.getSource() != null && ticket.getDestination() != null) {
+            salesByLeg.computeIfAbsent(legOf(ticket), k -> new HourlyCounter()).add(now, delta);
+        }
+    }
+
+    // Since the process started
+    public long getBookingCount() {
+        return bookings.sum();
+    }
+
+    public long getCancellationCount() {
+        return cancellations.sum();
+    }
+
+    // Legs with the most net seats sold in the last 'hours' hours (at most HOURS_KEPT)
+    public List<HotRoute> hotRoutes(int hours, int limit) {
+        long currentHour = System.currentTimeMillis() / HOUR_MILLIS;
+        int window = Math.min(Math.max(hours, 1), HOURS_KEPT);
+        return salesByLeg.entrySet().parallelStream()
+                .map(entry -> {
+                    long sold = 0;
+                    for (long hour = currentHour - window + 1; hour <= currentHour; hour++) {
+                        sold += entry.getValue().get(hour);
+                    }
+                    return new HotRoute(entry.getKey(), sold);
+                })
+                .filter(route -> route.getSeatsSold() > 0)
+                .sorted(Comparator.comparingLong(HotRoute::getSeatsSold).reversed().thenComparing(HotRoute::getLeg))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    // Hour-by-hour sales of the train over the last 'hours' hours, oldest first. The sell-through
+    // at the end of each hour is worked back from the train's current seat map.
+    public List<SalesBucket> sellThrough(String trainId, int hours) {
+        List<List<Integer>> seats = seatSource.apply(trainId);
+        if (seats == null) {
+            return Collections.emptyList();
+        }
+        LoadFactor now = countSeats(trainId, seats);
+        HourlyCounter counter = salesByTrain.get(trainId.toLowerCase());
+        long currentHour = System.currentTimeMillis() / HOUR_MILLIS;
+        int window = Math.min(Math.max(hours, 1), HOURS_KEPT);
+
+        List<SalesBucket> buckets = new ArrayList<>(window);
+        long soldAtEnd = now.getBookedSeats();
+        for (long hour = currentHour; hour > currentHour - window; hour--) {
+            long sales = (counter != null) ? counter.get(hour) : 0;
+            double sellThrough = (now.getTotalSeats() == 0) ? 0.0 : (double) soldAtEnd / now.getTotalSeats();
+            buckets.add(new SalesBucket(hour * HOUR_MILLIS, sales, sellThrough));
+            soldAtEnd -= sales;
+        }
+        Collections.reverse(buckets);
+        return buckets;
+    }
+
+    // Load factors per train, route and leg, computed in parallel from a fresh snapshot
+    public OccupancyReport occupancyReport() {
+        long start = System.nanoTime();
+        Snapshot snapshot = snapshotSource.get();
+
+        Map<String, LoadFactor> byTrain = snapshot.trains.parallelStream()
+                .collect(Collectors.toConcurrentMap(train -> train.getTrainId().toLowerCase(),
+                        train -> countSeats(train.getTrainId(), train.getSeats()), LoadFactor::plus));
+        List<LoadFactor> trains = byTrain.values().stream().sorted(BUSIEST_FIRST).collect(Collectors.toList());
+
+        // Trains without stations (e.g. half-written catalogue entries) count above but have no
+        // route or legs, as TrainService.validTrain never matches them either
+        List<LoadFactor> routes = snapshot.trains.parallelStream()
+                .filter(BookingAnalytics::hasStations)
+                .collect(Collectors.toConcurrentMap(BookingAnalytics::routeOf,
+                        train -> relabel(byTrain.get(train.getTrainId().toLowerCase()), routeOf(train)), LoadFactor::plus))
+                .values().stream().sorted(BUSIEST_FIRST).collect(Collectors.toList());
+
+        // Legs: each train's seats against the tickets whose journey spans the leg, i.e. every
+        // ticket boarding at or before its first station and leaving at or after its second.
+        // A leg served by several trains adds up their figures.
+        Map<String, List<Ticket>> ticketsByTrain = snapshot.tickets.parallelStream()
+                .filter(ticket -> ticket.getTrain() != null && ticket.getSource() != null && ticket.getDestination() != null)
+                .collect(Collectors.groupingByConcurrent(ticket -> ticket.getTrain().getTrainId().toLowerCase()));
+        List<LoadFactor> legs = snapshot.trains.parallelStream()
+                .filter(BookingAnalytics::hasStations)
+                .flatMap(train -> {
+                    String trainKey = train.getTrainId().toLowerCase();
+                    return legLoads(train, ticketsByTrain.getOrDefault(trainKey, Collections.emptyList()),
+                            byTrain.get(trainKey).getTotalSeats()).stream();
+                })
+                .collect(Collectors.toConcurrentMap(LoadFactor::getKey, leg -> leg, LoadFactor::plus))
+                .values().stream().sorted(BUSIEST_FIRST).collect(Collectors.toList());
+
+        LoadFactor overall = trains.stream().reduce(new LoadFactor("all trains", 0, 0, 0),
+                (total, train) -> total.plus(relabel(train, total.getKey())));
+        long computeMillis = (System.nanoTime() - start) / 1_000_000;
+        return new OccupancyReport(snapshot.takenAt, computeMillis, overall, trains, routes, legs, snapshot.tickets.size());
+    }
+
+    // One load factor per pair of consecutive stations of the train
+    private static List<LoadFactor> legLoads(Train train, List<Ticket> tickets, long seats) {
+        List<String> stations = train.getStations().stream().map(String::toLowerCase).collect(Collectors.toList());
+        if (stations.size() < 2) {
+            return Collections.emptyList();
+        }
+        long[] riding = new long[stations.size() - 1];
+        for (Ticket ticket : tickets) {
+            int from = stations.indexOf(ticket.getSource().toLowerCase());
+            int to = stations.indexOf(ticket.getDestination().toLowerCase());
+            if (from < 0 || to <= from) {
+                continue; // Not a journey on this train's route
+            }
+            for (int leg = from; leg < to; leg++) {
+                riding[leg]++;
+            }
+        }
+        List<LoadFactor> legs = new ArrayList<>(riding.length);
+        for (int leg = 0; leg < riding.length; leg++) {
+            legs.add(new LoadFactor(stations.get(leg) + "->" + stations.get(leg + 1), riding[leg], 0, seats));
+        }
+        return legs;
+    }
+
+    private static LoadFactor countSeats(String key, List<List<Integer>> seats) {
+        long booked = 0;
+        long held = 0;
+        long total = 0;
+        for (List<Integer> row : seats) {
+            if (row == null) {
+                continue;
+            }
+            for (Integer state : row) {
+                total++;
+                if (state == null) {
+                    continue;
+                }
+                if (state == SeatChange.BOOKED) {
+                    booked++;
+                } else if (state == SeatChange.HELD) {
+                    held++;
+                }
+            }
+        }
+        return new LoadFactor(key, booked, held, total);
+    }
+
+    private static LoadFactor relabel(LoadFactor loadFactor, String key) {
+        return new LoadFactor(key, loadFactor.getBookedSeats(), loadFactor.getHeldSeats(), loadFactor.getTotalSeats());
+    }
+
+    private static boolean hasStations(Train train) {
+        return train.getStations() != null && !train.getStations().isEmpty();
+    }
+
+    private static String routeOf(Train train) {
+        return String.join(" > ", train.getStations());
+    }
+
+    // Station names are matched in lower case everywhere (see TrainService.searchTrains)
+    private static String legOf(Ticket ticket) {
+        return ticket.getSource().toLowerCase() + "->" + ticket.getDestination().toLowerCase();
+    }
+}
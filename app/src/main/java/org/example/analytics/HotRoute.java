@@ -0,0 +1,26 @@
+package org.example.analytics;
+
+// A leg ("source->destination") and the net seats sold on it within the requested window
+public class HotRoute {
+
+    private final String leg;
+    private final long seatsSold;
+
+    public HotRoute(String leg, long seatsSold) {
+        this.leg = leg;
+        this.seatsSold = seatsSold;
+    }
+
+    public String getLeg() {
+        return leg;
+    }
+
+    public long getSeatsSold() {
+        return seatsSold;
+    }
+
+    @Override
+    public String toString() {
+        return leg + ": " + seatsSold + " seats";
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.analytics;
+
+// Seat occupancy of one train, route or leg. Held seats are in checkout and not yet sold,
+// so they are reported separately and don't count towards the load factor.
+public class LoadFactor {
+
+    private final String key;
+    private final long bookedSeats;
+    private final long heldSeats;
+    private final long totalSeats;
+
+    public LoadFactor(String key, long bookedSeats, long heldSeats, long totalSeats) {
+        this.key = key;
+        this.bookedSeats = bookedSeats;
+        this.heldSeats = heldSeats;
+        this.totalSeats = totalSeats;
+    }
+
+    // Combines two counts for the same key, e.g. two trains running the same route
+    public LoadFactor plus(LoadFactor other) {
+        return new LoadFactor(key, bookedSeats + other.bookedSeats, heldSeats + other.heldSeats, totalSeats + other.totalSeats);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getBookedSeats() {
+        return bookedSeats;
+    }
+
+    public long getHeldSeats() {
+        return heldSeats;
+    }
+
+    public long getTotalSeats() {
+        return totalSeats;
+    }
+
+    public double getLoadFactor() {
+        return (totalSeats == 0) ? 0.0 : (double) bookedSeats / totalSeats;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d/%d seats sold (%.1f%%), %d held", key, bookedSeats, totalSeats, getLoadFactor() * 100, heldSeats);
+    }
+}
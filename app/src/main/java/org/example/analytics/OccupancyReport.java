@@ -0,0 +1,57 @@
+package org.example.analytics;
+
+import java.util.Collections;
+import java.util.List;
+
+// Load factors computed by BookingAnalytics from one snapshot, each list busiest first.
+// Routes are trains with the same station sequence; legs are the source->destination pairs
+// of upcoming tickets (archived ones aren't read), measured against every train serving the leg.
+public class OccupancyReport {
+
+    private final long takenAt; // Epoch millis of the snapshot
+    private final long computeMillis;
+    private final LoadFactor overall;
+    private final List<LoadFactor> trains;
+    private final List<LoadFactor> routes;
+    private final List<LoadFactor> legs;
+    private final long ticketCount;
+
+    public OccupancyReport(long takenAt, long computeMillis, LoadFactor overall, List<LoadFactor> trains,
+                           List<LoadFactor> routes, List<LoadFactor> legs, long ticketCount) {
+        this.takenAt = takenAt;
+        this.computeMillis = computeMillis;
+        this.overall = overall;
+        this.trains = Collections.unmodifiableList(trains);
+        this.routes = Collections.unmodifiableList(routes);
+        this.legs = Collections.unmodifiableList(legs);
+        this.ticketCount = ticketCount;
+    }
+
+    public long getTakenAt() {
+        return takenAt;
+    }
+
+    public long getComputeMillis() {
+        return computeMillis;
+    }
+
+    public LoadFactor getOverall() {
+        return overall;
+    }
+
+    public List<LoadFactor> getTrains() {
+        return trains;
+    }
+
+    public List<LoadFactor> getRoutes() {
+        return routes;
+    }
+
+    public List<LoadFactor> getLegs() {
+        return legs;
+    }
+
+    public long getTicketCount() {
+        return ticketCount;
+    }
+}
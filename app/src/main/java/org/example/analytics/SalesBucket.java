@@ -0,0 +1,28 @@
+package org.example.analytics;
+
+// Net seats sold (bookings minus cancellations) during one hour, and the share of the
+// train's seats that were sold by the end of that hour
+public class SalesBucket {
+
+    private final long hourStart; // Epoch millis
+    private final long netSales;
+    private final double sellThrough;
+
+    public SalesBucket(long hourStart, long netSales, double sellThrough) {
+        this.hourStart = hourStart;
+        this.netSales = netSales;
+        this.sellThrough = sellThrough;
+    }
+
+    public long getHourStart() {
+        return hourStart;
+    }
+
+    public long getNetSales() {
+        return netSales;
+    }
+
+    public double getSellThrough() {
+        return sellThrough;
+    }
+}
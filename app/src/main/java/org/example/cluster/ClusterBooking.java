@@ -0,0 +1,71 @@
+package org.example.cluster;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+// A seat booked through the cluster. The router picks 'bookingId' before the first attempt,
+// so a BOOK that is retried after a lost reply is recognised instead of reported as taken.
+// Only the booking's user can cancel it. A node keeps the bookings of its trains in its own
+// bookings.json, and they move with a train when it changes nodes.
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ClusterBooking {
+
+    private String bookingId;
+    private String userId;
+    private String trainId;
+    private int row;
+    private int col;
+
+    // Default constructor for Jackson deserialization
+    public ClusterBooking() {}
+
+    public ClusterBooking(String bookingId, String userId, String trainId, int row, int col) {
+        this.bookingId = bookingId;
+        this.userId = userId;
+        this.trainId = trainId;
+        this.row = row;
+        this.col = col;
+    }
+
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    public void setBookingId(String bookingId) {
+        this.bookingId = bookingId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getTrainId() {
+        return trainId;
+    }
+
+    public void setTrainId(String trainId) {
+        this.trainId = trainId;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    public void setCol(int col) {
+        this.col = col;
+    }
+}
@@ -0,0 +1,323 @@
+package org.example.cluster;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.entities.Train;
+import org.example.service.AdmissionResult;
+import org.example.service.BookingAdmissionController;
+import org.example.service.TrainService;
+import org.example.util.StorageFormat;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// One member of a train-partitioned cluster. It owns the inventory of the trains the
+// router's hash ring assigns to it, stored in its own trains.json, and answers
+// newline-delimited JSON requests (see ClusterRequest) on a TCP port.
+// Bookings (see ClusterBooking) are kept in bookings.json next to the trains and go through
+// the same per-user rate limit and per-train queue as on a single server. Holds, waitlists
+// and tickets are features of UserBookingService and are not offered by cluster nodes.
+public class ClusterNode {
+
+    private final int port;
+    private final TrainService trainService;
+    private final File bookingsFile;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper compactMapper = StorageFormat.COMPACT_JSON.configure(new ObjectMapper());
+    private final Map<String, Object> trainLocks = new ConcurrentHashMap<>();
+    private final Map<String, ClusterBooking> bookingsById = new ConcurrentHashMap<>();
+    private final Set<String> frozenTrains = ConcurrentHashMap.newKeySet(); // Lower-case IDs of trains being moved
+    private final BookingAdmissionController admissionController = new BookingAdmissionController();
+    private ServerSocket serverSocket;
+    private volatile boolean running = false;
+
+    public ClusterNode(int port, File dataDir) throws IOException {
+        if (!dataDir.exists() && !dataDir.mkdirs()) {
+            throw new IOException("Cannot create data directory " + dataDir);
+        }
+        this.port = port;
+        this.trainService = new TrainService(new File(dataDir, "trains.json").getPath());
+        this.bookingsFile = new File(dataDir, "bookings.json");
+        if (bookingsFile.exists()) {
+            for (ClusterBooking booking : objectMapper.readValue(bookingsFile, new TypeReference<List<ClusterBooking>>() {})) {
+                indexBooking(booking);
+            }
+        }
+    }
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port);
+        running = true;
+        Thread acceptor = new Thread(this::acceptConnections, "cluster-node-" + port);
+        acceptor.start(); // Not a daemon: the node process lives as long as it serves
+        System.out.println("ClusterNode: Serving " + trainService.getAllTrains().size() + " trains on port " + port + ".");
+    }
+
+    public void stop() throws IOException {
+        running = false;
+        serverSocket.close();
+    }
+
+    private void acceptConnections() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Thread handler = new Thread(() -> serve(socket), "cluster-conn-" + socket.getPort());
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("ClusterNode: Error accepting connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                ClusterResponse response;
+                ObjectMapper responseMapper = objectMapper;
+                try {
+                    ClusterRequest request = objectMapper.readValue(line, ClusterRequest.class);
+                    if (request.getResponseFormat() != null && request.getResponseFormat().isCompact()) {
+                        responseMapper = compactMapper; // Routers never ask for BINARY (see StorageFormat.forTarget)
+                    }
+                    response = handle(request);
+                } catch (RuntimeException | IOException e) {
+                    response = ClusterResponse.error("Bad request: " + e.getMessage());
+                }
+                writer.write(responseMapper.writeValueAsString(response));
+                writer.write('\n');
+                writer.flush();
+            }
+        } catch (IOException e) {
+            // Router went away; it reconnects on its next request
+        }
+    }
+
+    ClusterResponse handle(ClusterRequest request) throws IOException {
+        switch (request.getOperation()) {
+            case BOOK:
+                return book(request);
+            case CANCEL:
+                return cancel(request);
+            case AVAILABILITY: {
+                Train train = trainService.getTrainById(request.getTrainId());
+                return (train != null)
+                        ? ClusterResponse.count(trainService.getAvailableSeatsCount(train))
+                        : ClusterResponse.error("Unknown train " + request.getTrainId());
+            }
+            case SEARCH:
+                synchronized (this) { // Don't iterate the catalogue while a PUT_TRAIN changes it
+                    return ClusterResponse.trains(trainService.searchTrains(request.getSource(), request.getDestination()));
+                }
+            case PUT_TRAIN:
+                synchronized (this) { // Catalogue changes are rare; one at a time is fine
+                    trainService.saveOrUpdateTrain(request.getTrain());
+                    if (request.getBookings() != null) {
+                        dropBookings(request.getTrain().getTrainId());
+                        request.getBookings().forEach(this::indexBooking);
+                        saveBookings();
+                    }
+                }
+                return ClusterResponse.ok();
+            case REMOVE_TRAIN:
+                synchronized (this) {
+                    if (!trainService.removeTrain(request.getTrainId())) {
+                        return ClusterResponse.error("Unknown train " + request.getTrainId());
+                    }
+                    dropBookings(request.getTrainId());
+                    saveBookings();
+                    frozenTrains.remove(request.getTrainId().toLowerCase());
+                    return ClusterResponse.ok();
+                }
+            case LIST_TRAINS:
+                synchronized (this) {
+                    return ClusterResponse.trains(trainService.getAllTrains());
+                }
+            case FREEZE_TRAIN: {
+                Train train = trainService.getTrainById(request.getTrainId());
+                if (train == null) {
+                    return ClusterResponse.error("Unknown train " + request.getTrainId());
+                }
+                // Under the train lock, so no booking is half-way through when the copy is taken
+                synchronized (lockFor(train.getTrainId())) {
+                    frozenTrains.add(train.getTrainId().toLowerCase());
+                    ClusterResponse response = ClusterResponse.trains(List.of(train));
+                    response.setBookings(bookingsOf(train.getTrainId()));
+                    return response;
+                }
+            }
+            case UNFREEZE_TRAIN:
+                frozenTrains.remove(request.getTrainId().toLowerCase());
+                return ClusterResponse.ok();
+            default:
+                return ClusterResponse.error("Unsupported operation " + request.getOperation());
+        }
+    }
+
+    private ClusterResponse book(ClusterRequest request) {
+        if (request.getUserId() == null || request.getBookingId() == null || request.getRow() == null || request.getCol() == null) {
+            return ClusterResponse.error("BOOK needs user_id, booking_id, row and col");
+        }
+        Train train = trainService.getTrainById(request.getTrainId());
+        if (train == null) {
+            return ClusterResponse.error("Unknown train " + request.getTrainId());
+        }
+        ClusterBooking earlier = bookingsById.get(request.getBookingId());
+        if (earlier != null) {
+            // A retry of a booking that went through, or a reused booking ID. Saves the retry a
+            // rate-limit token; bookSeat checks again under the train lock.
+            return isSameBooking(earlier, request)
+                    ? ClusterResponse.booked(earlier.getBookingId())
+                    : ClusterResponse.error("Booking ID " + request.getBookingId() + " is already in use");
+        }
+
+        String[] failure = new String[1];
+        AdmissionResult result = admissionController.submit(request.getUserId(), train.getTrainId(),
+                () -> trainService.getAvailableSeatsCount(train),
+                () -> {
+                    failure[0] = bookSeat(train, request);
+                    return failure[0] == null;
+                });
+        if (result.isBooked()) {
+            return ClusterResponse.booked(request.getBookingId());
+        }
+        return ClusterResponse.error((failure[0] != null) ? failure[0] : result.toString());
+    }
+
+    // Returns null on success, otherwise why the seat could not be booked
+    private String bookSeat(Train train, ClusterRequest request) {
+        int row = request.getRow();
+        int col = request.getCol();
+        synchronized (lockFor(train.getTrainId())) {
+            if (frozenTrains.contains(train.getTrainId().toLowerCase())) {
+                return "Train " + train.getTrainId() + " is moving to another node; retry shortly.";
+            }
+            // Two retries of one booking may both have passed the check in book(); only one books
+            ClusterBooking earlier = bookingsById.get(request.getBookingId());
+            if (earlier != null) {
+                return isSameBooking(earlier, request) ? null : "Booking ID " + request.getBookingId() + " is already in use";
+            }
+            List<List<Integer>> seats = train.getSeats();
+            if (row < 0 || row >= seats.size() || col < 0 || col >= seats.get(row).size()) {
+                return "Invalid row or column index.";
+            }
+            if (seats.get(row).get(col) != 0) {
+                return "Seat (" + row + "," + col + ") is already booked.";
+            }
+            // The seat is written first: a crash in between leaves a booked seat, never a double booking
+            try {
+                seats.get(row).set(col, 1);
+                trainService.updateTrainSeats(train);
+                indexBooking(new ClusterBooking(request.getBookingId(), request.getUserId(), train.getTrainId(), row, col));
+                saveBookings();
+                return null;
+            } catch (IOException e) {
+                return "Failed to save booking: " + e.getMessage();
+            }
+        }
+    }
+
+    // Only the user who made a booking can cancel it
+    private ClusterResponse cancel(ClusterRequest request) throws IOException {
+        ClusterBooking booking = (request.getBookingId() != null) ? bookingsById.get(request.getBookingId()) : null;
+        if (booking == null || !booking.getUserId().equals(request.getUserId())) {
+            return ClusterResponse.error("No booking " + request.getBookingId() + " for user " + request.getUserId());
+        }
+        Train train = trainService.getTrainById(booking.getTrainId());
+        if (train == null) {
+            return ClusterResponse.error("Unknown train " + booking.getTrainId());
+        }
+        synchronized (lockFor(train.getTrainId())) {
+            if (frozenTrains.contains(train.getTrainId().toLowerCase())) {
+                return ClusterResponse.error("Train " + train.getTrainId() + " is moving to another node; retry shortly.");
+            }
+            if (bookingsById.get(booking.getBookingId()) != booking) {
+                return ClusterResponse.error("Booking " + booking.getBookingId() + " was already cancelled");
+            }
+            unindexBooking(booking);
+            saveBookings();
+            train.getSeats().get(booking.getRow()).set(booking.getCol(), 0);
+            trainService.updateTrainSeats(train);
+            return ClusterResponse.ok();
+        }
+    }
+
+    private static boolean isSameBooking(ClusterBooking booking, ClusterRequest request) {
+        return booking.getUserId().equals(request.getUserId())
+                && booking.getTrainId().equalsIgnoreCase(request.getTrainId())
+                && booking.getRow() == request.getRow()
+                && booking.getCol() == request.getCol();
+    }
+
+    private Object lockFor(String trainId) {
+        return trainLocks.computeIfAbsent(trainId.toLowerCase(), k -> new Object());
+    }
+
+    private void indexBooking(ClusterBooking booking) {
+        bookingsById.put(booking.getBookingId(), booking);
+    }
+
+    private void unindexBooking(ClusterBooking booking) {
+        bookingsById.remove(booking.getBookingId());
+    }
+
+    private List<ClusterBooking> bookingsOf(String trainId) {
+        List<ClusterBooking> bookings = new ArrayList<>();
+        for (ClusterBooking booking : bookingsById.values()) {
+            if (booking.getTrainId().equalsIgnoreCase(trainId)) {
+                bookings.add(booking);
+            }
+        }
+        return bookings;
+    }
+
+    private void dropBookings(String trainId) {
+        bookingsOf(trainId).forEach(this::unindexBooking);
+    }
+
+    // Same temp-file-and-move as TrainService, so a crash can't truncate the bookings
+    private synchronized void saveBookings() throws IOException {
+        Path target = bookingsFile.toPath();
+        Path temp = Paths.get(bookingsFile.getPath() + ".tmp");
+        objectMapper.writeValue(temp.toFile(), new ArrayList<>(bookingsById.values()));
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Usage: ClusterNode <port> <dataDir>
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: ClusterNode <port> <dataDir>");
+            return;
+        }
+        new ClusterNode(Integer.parseInt(args[0]), new File(args[1])).start();
+    }
+}
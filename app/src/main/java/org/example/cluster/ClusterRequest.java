@@ -0,0 +1,196 @@
+package org.example.cluster;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import org.example.entities.Train;
+import org.example.util.StorageFormat;
+
+import java.util.List;
+
+// One request from the router to a cluster node, sent as a single line of JSON.
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ClusterRequest {
+
+    public enum Operation {
+        BOOK(true),            // Book seat ('row', 'col') of 'trainId' for 'userId' as 'bookingId'
+        CANCEL(false),         // Cancel booking 'bookingId' of 'userId' on 'trainId'
+        AVAILABILITY(true),    // Count the available seats of 'trainId'
+        SEARCH(true),          // Trains on this node serving 'source' -> 'destination'
+        PUT_TRAIN(true),       // Store 'train' and its 'bookings' on this node (used when trains move)
+        REMOVE_TRAIN(false),   // Drop 'trainId' and its bookings from this node
+        LIST_TRAINS(true),     // Every train stored on this node
+        FREEZE_TRAIN(true),    // Stop seat changes on 'trainId' and return it with its bookings
+        UNFREEZE_TRAIN(true);  // Allow seat changes on 'trainId' again
+
+        // Whether sending the request twice has the same effect as sending it once, so the
+        // router may resend it when a connection breaks before the reply arrives
+        private final boolean retryable;
+
+        Operation(boolean retryable) {
+            this.retryable = retryable;
+        }
+
+        public boolean isRetryable() {
+            return retryable;
+        }
+    }
+
+    private Operation operation;
+    private String trainId;
+    private Integer row;
+    private Integer col;
+    private String source;
+    private String destination;
+    private Train train;
+    private String userId;
+    private String bookingId;
+    private List<ClusterBooking> bookings;
+    private StorageFormat responseFormat; // How the node should encode its reply; null means JSON
+
+    // Default constructor for Jackson deserialization
+    public ClusterRequest() {}
+
+    public ClusterRequest(Operation operation) {
+        this.operation = operation;
+    }
+
+    public static ClusterRequest seat(Operation operation, String trainId, int row, int col) {
+        ClusterRequest request = new ClusterRequest(operation);
+        request.setTrainId(trainId);
+        request.setRow(row);
+        request.setCol(col);
+        return request;
+    }
+
+    public static ClusterRequest book(String userId, String trainId, int row, int col, String bookingId) {
+        ClusterRequest request = seat(Operation.BOOK, trainId, row, col);
+        request.setUserId(userId);
+        request.setBookingId(bookingId);
+        return request;
+    }
+
+    public static ClusterRequest cancel(String userId, String trainId, String bookingId) {
+        ClusterRequest request = forTrain(Operation.CANCEL, trainId);
+        request.setUserId(userId);
+        request.setBookingId(bookingId);
+        return request;
+    }
+
+    public static ClusterRequest forTrain(Operation operation, String trainId) {
+        ClusterRequest request = new ClusterRequest(operation);
+        request.setTrainId(trainId);
+        return request;
+    }
+
+    public static ClusterRequest search(String source, String destination) {
+        ClusterRequest request = new ClusterRequest(Operation.SEARCH);
+        request.setSource(source);
+        request.setDestination(destination);
+        return request;
+    }
+
+    public static ClusterRequest putTrain(Train train) {
+        return putTrain(train, null);
+    }
+
+    // 'bookings' replace any bookings the node already has for the train (null keeps them)
+    public static ClusterRequest putTrain(Train train, List<ClusterBooking> bookings) {
+        ClusterRequest request = new ClusterRequest(Operation.PUT_TRAIN);
+        request.setTrainId(train.getTrainId());
+        request.setTrain(train);
+        request.setBookings(bookings);
+        return request;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(Operation operation) {
+        this.operation = operation;
+    }
+
+    public String getTrainId() {
+        return trainId;
+    }
+
+    public void setTrainId(String trainId) {
+        this.trainId = trainId;
+    }
+
+    public Integer getRow() {
+        return row;
+    }
+
+    public void setRow(Integer row) {
+        this.row = row;
+    }
+
+    public Integer getCol() {
+        return col;
+    }
+
+    public void setCol(Integer col) {
+        this.col = col;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public void setDestination(String destination) {
+        this.destination = destination;
+    }
+
+    public Train getTrain() {
+        return train;
+    }
+
+    public void setTrain(Train train) {
+        this.train = train;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    public void setBookingId(String bookingId) {
+        this.bookingId = bookingId;
+    }
+
+    public List<ClusterBooking> getBookings() {
+        return bookings;
+    }
+
+    public void setBookings(List<ClusterBooking> bookings) {
+        this.bookings = bookings;
+    }
+
+    public StorageFormat getResponseFormat() {
+        return responseFormat;
+    }
+
+    public void setResponseFormat(StorageFormat responseFormat) {
+        this.responseFormat = responseFormat;
+    }
+}
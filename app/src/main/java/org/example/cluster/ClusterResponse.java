@@ -0,0 +1,105 @@
+package org.example.cluster;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import org.example.entities.Train;
+
+import java.util.List;
+
+// A cluster node's answer to one ClusterRequest, sent as a single line of JSON.
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ClusterResponse {
+
+    private boolean ok;
+    private String message;
+    private Integer count;
+    private List<Train> trains;
+    private String bookingId;
+    private List<ClusterBooking> bookings;
+
+    // Default constructor for Jackson deserialization
+    public ClusterResponse() {}
+
+    public ClusterResponse(boolean ok, String message) {
+        this.ok = ok;
+        this.message = message;
+    }
+
+    public static ClusterResponse ok() {
+        return new ClusterResponse(true, null);
+    }
+
+    public static ClusterResponse error(String message) {
+        return new ClusterResponse(false, message);
+    }
+
+    public static ClusterResponse count(int count) {
+        ClusterResponse response = ok();
+        response.setCount(count);
+        return response;
+    }
+
+    public static ClusterResponse trains(List<Train> trains) {
+        ClusterResponse response = ok();
+        response.setTrains(trains);
+        return response;
+    }
+
+    public static ClusterResponse booked(String bookingId) {
+        ClusterResponse response = ok();
+        response.setBookingId(bookingId);
+        return response;
+    }
+
+    public boolean isOk() {
+        return ok;
+    }
+
+    public void setOk(boolean ok) {
+        this.ok = ok;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public void setCount(Integer count) {
+        this.count = count;
+    }
+
+    public List<Train> getTrains() {
+        return trains;
+    }
+
+    public void setTrains(List<Train> trains) {
+        this.trains = trains;
+    }
+
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    public void setBookingId(String bookingId) {
+        this.bookingId = bookingId;
+    }
+
+    public List<ClusterBooking> getBookings() {
+        return bookings;
+    }
+
+    public void setBookings(List<ClusterBooking> bookings) {
+        this.bookings = bookings;
+    }
+}
@@ -0,0 +1,329 @@
+package org.example.cluster;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.entities.Train;
+import org.example.util.ConsistentHashRing;
+import org.example.util.StorageFormat;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+// Thin router in front of a train-partitioned cluster. Trains are assigned to nodes by a
+// consistent hash of their ID; book, cancel and availability calls go to the owning node,
+// and searches fan out to every node in parallel and are merged. Adding a node moves only
+// the trains whose ring position now falls to the new node.
+public class ClusterRouter {
+
+    private static final int VIRTUAL_NODES = 128;
+
+    private final ConsistentHashRing<NodeClient> ring =
+            new ConsistentHashRing<>(VIRTUAL_NODES, NodeClient::getName);
+    private final ExecutorService fanOutPool = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "cluster-fan-out");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ClusterRouter(List<InetSocketAddress> nodes) {
+        for (InetSocketAddress address : nodes) {
+            ring.addNode(new NodeClient(address));
+        }
+    }
+
+    // Books the seat for the user. Returns the booking ID needed to cancel it, or null.
+    // The ID is chosen here, so a retry after a lost reply is recognised by the node.
+    public String bookSeat(String userId, String trainId, int row, int col) throws IOException {
+        ClusterResponse response = ownerOf(trainId).call(
+                ClusterRequest.book(userId, trainId, row, col, UUID.randomUUID().toString()));
+        if (!response.isOk()) {
+            System.out.println("ClusterRouter: " + response.getMessage());
+            return null;
+        }
+        return response.getBookingId();
+    }
+
+    public boolean cancelBooking(String userId, String trainId, String bookingId) throws IOException {
+        ClusterResponse response = ownerOf(trainId).call(ClusterRequest.cancel(userId, trainId, bookingId));
+        if (!response.isOk()) {
+            System.out.println("ClusterRouter: " + response.getMessage());
+        }
+        return response.isOk();
+    }
+
+    public int getAvailableSeatsCount(String trainId) throws IOException {
+        ClusterResponse response = ownerOf(trainId).call(ClusterRequest.forTrain(ClusterRequest.Operation.AVAILABILITY, trainId));
+        return (response.isOk() && response.getCount() != null) ? response.getCount() : 0;
+    }
+
+    // Asks every node at once and merges the results, ordered by train ID.
+    // An unreachable node only drops its own trains from the result. A train is taken only from
+    // the node the ring assigns it to: while it migrates, or if removing it from its old node
+    // failed, another node still holds a copy whose seat map is stale.
+    public List<Train> searchTrains(String source, String destination) {
+        List<CompletableFuture<List<Train>>> futures = new ArrayList<>();
+        for (NodeClient node : ring.getNodes()) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    List<Train> trains = node.call(ClusterRequest.search(source, destination)).getTrains();
+                    return (trains != null)
+                            ? trains.stream()
+                                    .filter(train -> ring.nodeFor(ringKey(train.getTrainId())) == node)
+                                    .collect(Collectors.toList())
+                            : new ArrayList<Train>();
+                } catch (IOException e) {
+                    System.err.println("ClusterRouter: Search skipped node " + node.getName() + ": " + e.getMessage());
+                    return new ArrayList<Train>();
+                }
+            }, fanOutPool));
+        }
+        List<Train> merged = new ArrayList<>();
+        for (CompletableFuture<List<Train>> future : futures) {
+            merged.addAll(future.join());
+        }
+        merged.sort(Comparator.comparing(Train::getTrainId, String.CASE_INSENSITIVE_ORDER));
+        return merged;
+    }
+
+    // Places a train (new or updated) on the node that owns it
+    public void putTrain(Train train) throws IOException {
+        ClusterResponse response = ownerOf(train.getTrainId()).call(ClusterRequest.putTrain(train));
+        if (!response.isOk()) {
+            throw new IOException("Failed to store train " + train.getTrainId() + ": " + response.getMessage());
+        }
+    }
+
+    // Adds a node to the ring and moves over the trains it now owns. Returns how many moved.
+    // Each moving train is frozen on its old node (bookings and cancellations are refused with
+    // a retry hint) and copied with its bookings; only then does the ring route to the new
+    // node and the old copies get dropped. A booking can't land on a copy that is thrown away.
+    public int addNode(InetSocketAddress address) throws IOException {
+        NodeClient newNode = new NodeClient(address);
+        List<NodeClient> existing = ring.getNodes();
+        ConsistentHashRing<NodeClient> next = new ConsistentHashRing<>(VIRTUAL_NODES, NodeClient::getName);
+        existing.forEach(next::addNode);
+        next.addNode(newNode);
+
+        Map<String, NodeClient> moved = new LinkedHashMap<>(); // Train ID -> node it leaves
+        try {
+            for (NodeClient node : existing) {
+                List<Train> trains = node.call(new ClusterRequest(ClusterRequest.Operation.LIST_TRAINS)).getTrains();
+                if (trains == null) {
+                    continue;
+                }
+                for (Train listed : trains) {
+                    if (next.nodeFor(ringKey(listed.getTrainId())) != newNode) {
+                        continue;
+                    }
+                    moved.put(listed.getTrainId(), node);
+                    ClusterResponse frozen = node.call(
+                            ClusterRequest.forTrain(ClusterRequest.Operation.FREEZE_TRAIN, listed.getTrainId()));
+                    if (!frozen.isOk() || frozen.getTrains() == null || frozen.getTrains().isEmpty()) {
+                        throw new IOException("Failed to freeze train " + listed.getTrainId() + ": " + frozen.getMessage());
+                    }
+                    ClusterResponse copied = newNode.call(ClusterRequest.putTrain(frozen.getTrains().get(0),
+                            (frozen.getBookings() != null) ? frozen.getBookings() : new ArrayList<>()));
+                    if (!copied.isOk()) {
+                        throw new IOException("Failed to copy train " + listed.getTrainId() + ": " + copied.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Leave every train where it was; copies on the new node are never routed to
+            for (Map.Entry<String, NodeClient> entry : moved.entrySet()) {
+                try {
+                    entry.getValue().call(ClusterRequest.forTrain(ClusterRequest.Operation.UNFREEZE_TRAIN, entry.getKey()));
+                } catch (IOException unfreezeFailed) {
+                    System.err.println("ClusterRouter: Train " + entry.getKey() + " stays frozen on "
+                            + entry.getValue().getName() + ": " + unfreezeFailed.getMessage());
+                }
+            }
+            throw e;
+        }
+
+        ring.addNode(newNode);
+        for (Map.Entry<String, NodeClient> entry : moved.entrySet()) {
+            try {
+                entry.getValue().call(ClusterRequest.forTrain(ClusterRequest.Operation.REMOVE_TRAIN, entry.getKey()));
+            } catch (IOException e) {
+                // The stale copy stays frozen and unrouted; it is only wasted space
+                System.err.println("ClusterRouter: Could not drop train " + entry.getKey() + " from "
+                        + entry.getValue().getName() + ": " + e.getMessage());
+            }
+        }
+        System.out.println("ClusterRouter: Added " + newNode.getName() + "; moved " + moved.size() + " trains.");
+        return moved.size();
+    }
+
+    public Map<NodeClient, Double> ownership() {
+        return ring.ownership();
+    }
+
+    private NodeClient ownerOf(String trainId) throws IOException {
+        NodeClient node = ring.nodeFor(ringKey(trainId));
+        if (node == null) {
+            throw new IOException("Cluster has no nodes");
+        }
+        return node;
+    }
+
+    // Train IDs are case-insensitive everywhere else, so they are on the ring too
+    private static String ringKey(String trainId) {
+        return trainId.toLowerCase();
+    }
+
+    // One persistent connection per node; requests on it are sent one at a time
+    static final class NodeClient {
+        private final InetSocketAddress address;
+        // -Dbooking.format.cluster=COMPACT_JSON compacts requests and asks nodes to compact replies
+        private final StorageFormat format = StorageFormat.forTarget("cluster");
+        private final ObjectMapper objectMapper = format.configure(new ObjectMapper());
+        private Socket socket;
+        private BufferedReader reader;
+        private Writer writer;
+
+        NodeClient(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        String getName() {
+            return address.getHostString() + ":" + address.getPort();
+        }
+
+        synchronized ClusterResponse call(ClusterRequest request) throws IOException {
+            try {
+                return send(request);
+            } catch (IOException e) {
+                close(); // Stale connection (e.g. the node restarted)
+                if (!request.getOperation().isRetryable()) {
+                    throw e; // The node may have applied it; sending it again could act twice
+                }
+                return send(request); // Retry once on a fresh connection
+            }
+        }
+
+        private ClusterResponse send(ClusterRequest request) throws IOException {
+            if (socket == null) {
+                socket = new Socket();
+                socket.connect(address, 2000);
+                socket.setTcpNoDelay(true);
+                reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            }
+            if (format.isCompact()) {
+                request.setResponseFormat(format);
+            }
+            writer.write(objectMapper.writeValueAsString(request));
+            writer.write('\n');
+            writer.flush();
+            String line = reader.readLine();
+            if (line == null) {
+                throw new IOException("Node " + getName() + " closed the connection");
+            }
+            return objectMapper.readValue(line, ClusterResponse.class);
+        }
+
+        private void close() {
+            try {
+                if (socket != null) {
+                    socket.close();
+                }
+            } catch (IOException ignored) {
+                // Already broken
+            }
+            socket = null;
+        }
+
+        @Override
+        public String toString() {
+            return getName();
+        }
+    }
+
+    private static InetSocketAddress parseAddress(String address) {
+        String[] parts = address.trim().split(":");
+        return new InetSocketAddress(parts[0], Integer.parseInt(parts[1]));
+    }
+
+    // Usage: ClusterRouter <host:port>[,<host:port>...]
+    // Reads simple commands from stdin so a local cluster can be driven by hand.
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: ClusterRouter <host:port>[,<host:port>...]");
+            return;
+        }
+        List<InetSocketAddress> nodes = new ArrayList<>();
+        for (String address : args[0].split(",")) {
+            nodes.add(parseAddress(address));
+        }
+        ClusterRouter router = new ClusterRouter(nodes);
+
+        System.out.println("Commands: load <trains.json> | search <source> <destination> | seats <trainId> | "
+                + "book <userId> <trainId> <row> <col> | cancel <userId> <trainId> <bookingId> | add-node <host:port> | ring | exit");
+        Scanner scanner = new Scanner(System.in);
+        while (scanner.hasNextLine()) {
+            String[] command = scanner.nextLine().trim().split("\\s+");
+            try {
+                switch (command[0]) {
+                    case "load":
+                        List<Train> trains = new ObjectMapper().readValue(new File(command[1]), new TypeReference<List<Train>>() {});
+                        for (Train train : trains) {
+                            router.putTrain(train);
+                        }
+                        System.out.println("Loaded " + trains.size() + " trains.");
+                        break;
+                    case "search":
+                        for (Train train : router.searchTrains(command[1], command[2])) {
+                            System.out.println(train.getTrainInfo() + " | Stations: " + train.getStations());
+                        }
+                        break;
+                    case "seats":
+                        System.out.println("Available Seats: " + router.getAvailableSeatsCount(command[1]));
+                        break;
+                    case "book":
+                        String bookingId = router.bookSeat(command[1], command[2], Integer.parseInt(command[3]), Integer.parseInt(command[4]));
+                        System.out.println((bookingId != null) ? "Booked. Booking ID: " + bookingId : "Booking failed.");
+                        break;
+                    case "cancel":
+                        System.out.println(router.cancelBooking(command[1], command[2], command[3])
+                                ? "Cancelled." : "Cancellation failed.");
+                        break;
+                    case "add-node":
+                        router.addNode(parseAddress(command[1]));
+                        break;
+                    case "ring":
+                        router.ownership().forEach((node, share) ->
+                                System.out.printf("%s owns %.1f%% of the ring%n", node, share * 100));
+                        break;
+                    case "exit":
+                        return;
+                    default:
+                        System.out.println("Unknown command: " + command[0]);
+                }
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                System.out.println("Invalid arguments for " + command[0]);
+            } catch (IOException e) {
+                System.out.println("Cluster error: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+// A ticket that left the hot store in users.json: the journey has been travelled or the
+// booking was cancelled. Stored in TicketArchive segments and read back only on request.
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ArchivedTicket {
+
+    public enum Status {
+        TRAVELLED, // The journey date has passed
+        CANCELLED
+    }
+
+    private Ticket ticket;
+    private Status status;
+    private long archivedAt; // Epoch millis
+
+    // Default constructor for Jackson deserialization
+    public ArchivedTicket() {}
+
+    public ArchivedTicket(Ticket ticket, Status status, long archivedAt) {
+        this.ticket = ticket;
+        this.status = status;
+        this.archivedAt = archivedAt;
+    }
+
+    public Ticket getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(Ticket ticket) {
+        this.ticket = ticket;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public long getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(long archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+}
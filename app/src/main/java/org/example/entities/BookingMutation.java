@@ -0,0 +1,176 @@
+package org.example.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+// One entry of the ordered booking log that the primary streams to its replicas.
+// Only the fields relevant to the mutation's type are set; the others stay null.
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingMutation {
+
+    public enum Type {
+        TRAIN_UPSERT,   // 'train' was added or replaced
+        TRAIN_REMOVED,  // Train 'trainId' left the catalogue
+        SEAT_STATE,     // Seat ('row', 'col') of 'trainId' changed to 'state' (see SeatChange)
+        USER_UPSERT,    // 'user' was added or replaced, including its tickets
+        TICKET_ADDED,   // 'ticket' was booked for 'userId'
+        TICKET_REMOVED, // Ticket 'ticketId' of 'userId' was cancelled
+        SNAPSHOT_BEGIN, // The upserts up to SNAPSHOT_END replace everything the replica holds
+        SNAPSHOT_END,   // The snapshot is complete; the replica is now at this sequence
+        HEARTBEAT       // Keeps idle connections alive; carries no change
+    }
+
+    private long sequence;
+    private Type type;
+    private String trainId;
+    private Integer row;
+    private Integer col;
+    private Integer state;
+    private String userId;
+    private String ticketId;
+    private Train train;
+    private User user;
+    private Ticket ticket;
+
+    // Default constructor for Jackson deserialization
+    public BookingMutation() {}
+
+    public BookingMutation(Type type) {
+        this.type = type;
+    }
+
+    public static BookingMutation trainUpsert(Train train) {
+        BookingMutation mutation = new BookingMutation(Type.TRAIN_UPSERT);
+        mutation.setTrainId(train.getTrainId());
+        mutation.setTrain(train);
+        return mutation;
+    }
+
+    public static BookingMutation trainRemoved(String trainId) {
+        BookingMutation mutation = new BookingMutation(Type.TRAIN_REMOVED);
+        mutation.setTrainId(trainId);
+        return mutation;
+    }
+
+    public static BookingMutation seatState(String trainId, int row, int col, int state) {
+        BookingMutation mutation = new BookingMutation(Type.SEAT_STATE);
+        mutation.setTrainId(trainId);
+        mutation.setRow(row);
+        mutation.setCol(col);
+        mutation.setState(state);
+        return mutation;
+    }
+
+    public static BookingMutation userUpsert(User user) {
+        BookingMutation mutation = new BookingMutation(Type.USER_UPSERT);
+        mutation.setUserId(user.getUserId());
+        mutation.setUser(user);
+        return mutation;
+    }
+
+    public static BookingMutation ticketAdded(String userId, Ticket ticket) {
+        BookingMutation mutation = new BookingMutation(Type.TICKET_ADDED);
+        mutation.setUserId(userId);
+        mutation.setTicket(ticket);
+        return mutation;
+    }
+
+    public static BookingMutation ticketRemoved(String userId, String ticketId) {
+        BookingMutation mutation = new BookingMutation(Type.TICKET_REMOVED);
+        mutation.setUserId(userId);
+        mutation.setTicketId(ticketId);
+        return mutation;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getTrainId() {
+        return trainId;
+    }
+
+    public void setTrainId(String trainId) {
+        this.trainId = trainId;
+    }
+
+    public Integer getRow() {
+        return row;
+    }
+
+    public void setRow(Integer row) {
+        this.row = row;
+    }
+
+    public Integer getCol() {
+        return col;
+    }
+
+    public void setCol(Integer col) {
+        this.col = col;
+    }
+
+    public Integer getState() {
+        return state;
+    }
+
+    public void setState(Integer state) {
+        this.state = state;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public Train getTrain() {
+        return train;
+    }
+
+    public void setTrain(Train train) {
+        this.train = train;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public Ticket getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(Ticket ticket) {
+        this.ticket = ticket;
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+// One seat-state delta on a train's live seat map. Sequence numbers are per train and
+// increase by one for every change, so a watcher can resume from the last one it saw.
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SeatChange {
+
+    public static final int AVAILABLE = 0;
+    public static final int BOOKED = 1;
+    public static final int HELD = 2; // Temporarily held during someone's checkout
+
+    private String trainId;
+    private long sequence;
+    private int row;
+    private int col;
+    private int state;
+
+    // Default constructor for Jackson deserialization
+    public SeatChange() {}
+
+    public SeatChange(String trainId, long sequence, int row, int col, int state) {
+        this.trainId = trainId;
+        this.sequence = sequence;
+        this.row = row;
+        this.col = col;
+        this.state = state;
+    }
+
+    public String getTrainId() {
+        return trainId;
+    }
+
+    public void setTrainId(String trainId) {
+        this.trainId = trainId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    public void setCol(int col) {
+        this.col = col;
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public void setState(int state) {
+        this.state = state;
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+// A temporary reservation of one seat while the customer completes checkout.
+// Holds live only in memory; they are never written to trains.json or users.json.
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SeatHold {
+
+    private String holdId;
+    private String userId;
+    private String trainId;
+    private int row;
+    private int col;
+    private long expiresAt; // Epoch millis after which the hold is released
+
+    // Default constructor for Jackson deserialization
+    public SeatHold() {}
+
+    public SeatHold(String holdId, String userId, String trainId, int row, int col, long expiresAt) {
+        this.holdId = holdId;
+        this.userId = userId;
+        this.trainId = trainId;
+        this.row = row;
+        this.col = col;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getHoldId() {
+        return holdId;
+    }
+
+    public void setHoldId(String holdId) {
+        this.holdId = holdId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getTrainId() {
+        return trainId;
+    }
+
+    public void setTrainId(String trainId) {
+        this.trainId = trainId;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    public void setCol(int col) {
+        this.col = col;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
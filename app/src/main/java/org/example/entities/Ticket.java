@@ -20,6 +20,8 @@ public class Ticket {
     private String destination;
     private String dateOfTravel; // Keeping as String as per your current code and JSON
     private Train train; // This will store the full Train object related to the ticket
+    private Integer seatRow; // Null for tickets booked before seat positions were recorded
+    private Integer seatCol;
 
     // Default constructor for Jackson deserialization
     public Ticket() {}
@@ -93,6 +95,22 @@ public class Ticket {
     public void setTrain(Train train) {
         this.train = train;
     }
+
+    public Integer getSeatRow() {
+        return seatRow;
+    }
+
+    public void setSeatRow(Integer seatRow) {
+        this.seatRow = seatRow;
+    }
+
+    public Integer getSeatCol() {
+        return seatCol;
+    }
+
+    public void setSeatCol(Integer seatCol) {
+        this.seatCol = seatCol;
+    }
 }
     // Removed getTicketInfoField/setTicketInfoField as getTicketInfo() method handles display.
     // If you need a 'ticketInfo' field to be persisted in JSON, you'd add it as a private field
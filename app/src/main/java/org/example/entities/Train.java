@@ -2,7 +2,9 @@ package org.example.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import org.example.util.SeatMapCodec;
 
 // No direct 'java.sql.Date' or 'java.sql.Time' imports needed unless specifically used.
 import java.util.List;
@@ -15,6 +17,7 @@ public class Train {
 
     private String trainId;
     private String trainNo;
+    @JsonDeserialize(using = SeatMapCodec.Deserializer.class) // Arrays, or the compact string form
     private List<List<Integer>> seats;
     private Map<String, String> stationTimes;
     private List<String> stations;
@@ -0,0 +1,89 @@
+package org.example.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+// A customer waiting for a seat on a train for a given leg (source -> destination).
+// Higher priority is served first; equal priorities are served in order of 'sequence'.
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class WaitlistEntry {
+
+    private String entryId;
+    private String userId;
+    private String trainId;
+    private String source;
+    private String destination;
+    private int priority;
+    private long sequence; // Arrival order, assigned by the waitlist
+
+    // Default constructor for Jackson deserialization
+    public WaitlistEntry() {}
+
+    public WaitlistEntry(String entryId, String userId, String trainId, String source, String destination, int priority, long sequence) {
+        this.entryId = entryId;
+        this.userId = userId;
+        this.trainId = trainId;
+        this.source = source;
+        this.destination = destination;
+        this.priority = priority;
+        this.sequence = sequence;
+    }
+
+    public String getEntryId() {
+        return entryId;
+    }
+
+    public void setEntryId(String entryId) {
+        this.entryId = entryId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getTrainId() {
+        return trainId;
+    }
+
+    public void setTrainId(String trainId) {
+        this.trainId = trainId;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public void setDestination(String destination) {
+        this.destination = destination;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+}
@@ -0,0 +1,226 @@
+package org.example.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.entities.BookingMutation;
+import org.example.entities.Ticket;
+import org.example.entities.Train;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+// A hot standby that follows a primary's booking log and serves read-only queries.
+// It is given the addresses of every node that may act as primary and cycles through them
+// when the connection drops. It can be promoted by hand, or automatically after the primary
+// has been unreachable for a number of attempts; it then takes bookings and cancellations
+// (see ReplicatedInventory.bookSeat) and streams its own log to the others.
+public class ReplicaNode {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    private static final int READ_TIMEOUT_MILLIS = 5000; // Several missed heartbeats
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+    private static final int LOG_RETENTION = 100_000;
+
+    private final List<InetSocketAddress> primaries;
+    private final ReplicatedInventory inventory = new ReplicatedInventory();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int promoteOnFailurePort; // 0 means never promote automatically
+    private final int maxFailedAttempts;
+    private volatile boolean following = true;
+    private volatile Socket socket;
+    private volatile ReplicationPrimary promotedPrimary;
+
+    public ReplicaNode(List<InetSocketAddress> primaries) {
+        this(primaries, 0, Integer.MAX_VALUE);
+    }
+
+    public ReplicaNode(List<InetSocketAddress> primaries, int promoteOnFailurePort, int maxFailedAttempts) {
+        this.primaries = primaries;
+        this.promoteOnFailurePort = promoteOnFailurePort;
+        this.maxFailedAttempts = maxFailedAttempts;
+    }
+
+    public void start() {
+        Thread follower = new Thread(this::follow, "replica-follower");
+        follower.setDaemon(true);
+        follower.start();
+    }
+
+    public ReplicatedInventory getInventory() {
+        return inventory;
+    }
+
+    public boolean isPromoted() {
+        return promotedPrimary != null;
+    }
+
+    // Stops following and starts serving this node's log on 'port'. Other replicas that list
+    // this node's address will re-attach to it and are re-seeded from a snapshot of this node.
+    public synchronized ReplicationPrimary promote(int port) throws IOException {
+        if (promotedPrimary != null) {
+            return promotedPrimary;
+        }
+        following = false;
+        Socket current = socket;
+        if (current != null) {
+            current.close();
+        }
+        ReplicationLog log = inventory.promote(LOG_RETENTION);
+        ReplicationPrimary primary = new ReplicationPrimary(port, log, inventory::snapshot);
+        primary.start();
+        promotedPrimary = primary;
+        System.out.println("ReplicaNode: Promoted to primary at sequence " + log.lastSequence() + ".");
+        return primary;
+    }
+
+    private void follow() {
+        int failedAttempts = 0;
+        int next = 0;
+        while (following) {
+            InetSocketAddress address = primaries.get(next);
+            try (Socket s = new Socket()) {
+                s.connect(address, CONNECT_TIMEOUT_MILLIS);
+                s.setSoTimeout(READ_TIMEOUT_MILLIS);
+                socket = s;
+                failedAttempts = 0;
+                stream(s, address);
+            } catch (SocketTimeoutException e) {
+                System.out.println("ReplicaNode: Primary " + address + " stopped sending heartbeats.");
+            } catch (IOException e) {
+                if (following) {
+                    System.out.println("ReplicaNode: Cannot reach primary " + address + ": " + e.getMessage());
+                }
+            } finally {
+                socket = null;
+            }
+            if (!following) {
+                break;
+            }
+
+            failedAttempts++;
+            if (promoteOnFailurePort > 0 && failedAttempts >= maxFailedAttempts) {
+                try {
+                    promote(promoteOnFailurePort);
+                } catch (IOException e) {
+                    System.err.println("ReplicaNode: Promotion failed: " + e.getMessage());
+                }
+                break;
+            }
+            next = (next + 1) % primaries.size(); // Try the next candidate, e.g. a promoted peer
+            sleepQuietly(RECONNECT_DELAY_MILLIS);
+        }
+    }
+
+    private void stream(Socket s, InetSocketAddress address) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8));
+        writer.write(objectMapper.writeValueAsString(
+                new ReplicationHandshake(inventory.getLogId(), inventory.getLastAppliedSequence())));
+        writer.write('\n');
+        writer.flush();
+
+        String line = reader.readLine();
+        if (line == null) {
+            return;
+        }
+        ReplicationHandshake hello = objectMapper.readValue(line, ReplicationHandshake.class);
+        inventory.beginStream(hello.getLogId());
+        System.out.println("ReplicaNode: Following " + address + " (log " + hello.getLogId() + ").");
+
+        while (following && (line = reader.readLine()) != null) {
+            inventory.apply(objectMapper.readValue(line, BookingMutation.class));
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Usage: ReplicaNode <host:port>[,<host:port>...] [--promote-on-failure <port>]
+    // Reads simple commands from stdin so several replicas can be tried out on one machine.
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: ReplicaNode <host:port>[,<host:port>...] [--promote-on-failure <port>]");
+            return;
+        }
+        List<InetSocketAddress> primaries = new ArrayList<>();
+        for (String address : args[0].split(",")) {
+            String[] parts = address.trim().split(":");
+            primaries.add(new InetSocketAddress(parts[0], Integer.parseInt(parts[1])));
+        }
+        int promotePort = 0;
+        if (args.length >= 3 && args[1].equals("--promote-on-failure")) {
+            promotePort = Integer.parseInt(args[2]);
+        }
+
+        ReplicaNode node = new ReplicaNode(primaries, promotePort, 3);
+        node.start();
+
+        System.out.println("Commands: search <source> <destination> | seats <trainId> | tickets <userId> | status | promote <port>"
+                + " | book <userId> <trainId> <row> <col> | cancel <userId> <ticketId> | export <dir> | exit");
+        Scanner scanner = new Scanner(System.in);
+        while (scanner.hasNextLine()) {
+            String[] command = scanner.nextLine().trim().split("\\s+");
+            try {
+                switch (command[0]) {
+                    case "search":
+                        for (Train train : node.getInventory().searchTrains(command[1], command[2])) {
+                            System.out.println(train.getTrainInfo() + " | Available Seats: "
+                                    + node.getInventory().getAvailableSeatsCount(train.getTrainId()));
+                        }
+                        break;
+                    case "seats":
+                        System.out.println("Available Seats: " + node.getInventory().getAvailableSeatsCount(command[1]));
+                        break;
+                    case "tickets":
+                        node.getInventory().ticketsFor(command[1]).forEach(t -> System.out.println(t.getTicketInfo()));
+                        break;
+                    case "status":
+                        System.out.println((node.isPromoted() ? "Primary" : "Replica") + " at sequence "
+                                + node.getInventory().getLastAppliedSequence());
+                        break;
+                    case "promote":
+                        node.promote(Integer.parseInt(command[1]));
+                        break;
+                    case "book": // Promoted nodes only
+                        Ticket ticket = node.getInventory().bookSeat(command[1], command[2],
+                                Integer.parseInt(command[3]), Integer.parseInt(command[4]));
+                        System.out.println((ticket != null) ? "Booked: " + ticket.getTicketInfo()
+                                : "Can't book this seat. It might be invalid or already taken.");
+                        break;
+                    case "cancel": // Promoted nodes only
+                        System.out.println(node.getInventory().cancelTicket(command[1], command[2])
+                                ? "Ticket " + command[2] + " has been canceled." : "No such ticket for " + command[1] + ".");
+                        break;
+                    case "export":
+                        node.getInventory().exportTo(new File(command[1], "trains.json"), new File(command[1], "users.json"));
+                        System.out.println("Exported to " + command[1]);
+                        break;
+                    case "exit":
+                        return;
+                    default:
+                        System.out.println("Unknown command: " + command[0]);
+                }
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                System.out.println("Invalid arguments for " + command[0]);
+            } catch (IllegalStateException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package org.example.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.example.entities.BookingMutation;
+import org.example.entities.SeatChange;
+import org.example.entities.Ticket;
+import org.example.entities.Train;
+import org.example.entities.User;
+import org.example.service.TrainService;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+// A replica's copy of the trains and users, rebuilt from the primary's booking log.
+// It serves searches and availability reads. Once promoted it also takes bookings and
+// cancellations (bookSeat, cancelTicket), which are appended to its own log for the
+// remaining replicas; everything else (sign-ups, holds, waitlists) needs a full
+// UserBookingService started from exportTo's files.
+// A snapshot is collected on the side and replaces the inventory only at SNAPSHOT_END, so
+// reads never see half of one and an interrupted snapshot leaves the old state in place.
+public class ReplicatedInventory {
+
+    private Map<String, Train> trains = new LinkedHashMap<>(); // Keyed by lower-case train ID
+    private Map<String, User> users = new LinkedHashMap<>();
+    private Map<String, Train> snapshotTrains; // Non-null while a snapshot is being received
+    private Map<String, User> snapshotUsers;
+    private long lastAppliedSequence = 0;
+    private String logId; // Log that lastAppliedSequence refers to
+    private String streamLogId; // Log of the primary currently streaming to us
+    private ReplicationLog log; // Set when this replica is promoted to primary
+
+    public synchronized void apply(BookingMutation mutation) {
+        Map<String, Train> targetTrains = (snapshotTrains != null) ? snapshotTrains : trains;
+        Map<String, User> targetUsers = (snapshotUsers != null) ? snapshotUsers : users;
+        switch (mutation.getType()) {
+            case SNAPSHOT_BEGIN:
+                snapshotTrains = new LinkedHashMap<>();
+                snapshotUsers = new LinkedHashMap<>();
+                return;
+            case SNAPSHOT_END:
+                if (snapshotTrains == null) {
+                    return; // No matching SNAPSHOT_BEGIN on this connection
+                }
+                trains = snapshotTrains;
+                users = snapshotUsers;
+                snapshotTrains = null;
+                snapshotUsers = null;
+                logId = streamLogId;
+                lastAppliedSequence = mutation.getSequence(); // May go down: it may be another log
+                return;
+            case TRAIN_UPSERT:
+                targetTrains.put(mutation.getTrain().getTrainId().toLowerCase(), mutation.getTrain());
+                break;
+            case TRAIN_REMOVED:
+                targetTrains.remove(mutation.getTrainId().toLowerCase());
+                break;
+            case SEAT_STATE:
+                Train train = targetTrains.get(mutation.getTrainId().toLowerCase());
+                if (train != null && mutation.getRow() < train.getSeats().size()
+                        && mutation.getCol() < train.getSeats().get(mutation.getRow()).size()) {
+                    train.getSeats().get(mutation.getRow()).set(mutation.getCol(), mutation.getState());
+                }
+                break;
+            case USER_UPSERT:
+                targetUsers.put(mutation.getUser().getUserId(), mutation.getUser());
+                break;
+            case TICKET_ADDED:
+                User owner = targetUsers.get(mutation.getUserId());
+                if (owner != null) {
+                    owner.getTicketsBooked().removeIf(t -> t.getTicketId().equals(mutation.getTicket().getTicketId()));
+                    owner.getTicketsBooked().add(mutation.getTicket());
+                }
+                break;
+            case TICKET_REMOVED:
+                User user = targetUsers.get(mutation.getUserId());
+                if (user != null) {
+                    user.getTicketsBooked().removeIf(t -> t.getTicketId().equals(mutation.getTicketId()));
+                }
+                break;
+            case HEARTBEAT:
+                return; // Carries no change and no sequence
+        }
+        if (snapshotTrains == null) {
+            lastAppliedSequence = Math.max(lastAppliedSequence, mutation.getSequence());
+        }
+    }
+
+    // Applies a mutation made on this node and records it for downstream replicas (promoted nodes only)
+    public synchronized long applyLocal(BookingMutation mutation) {
+        if (log == null) {
+            throw new IllegalStateException("Replica is read-only until it is promoted");
+        }
+        log.append(mutation);
+        apply(mutation);
+        return mutation.getSequence();
+    }
+
+    // Books an available seat for the user on a promoted node. Returns null if the train, the
+    // seat or the user doesn't exist or the seat is taken. Admission control and holds are the
+    // full service's job; this is the minimal write path that keeps a failed-over site selling.
+    public synchronized Ticket bookSeat(String userId, String trainId, int row, int col) {
+        if (log == null) {
+            throw new IllegalStateException("Replica is read-only until it is promoted");
+        }
+        Train train = trains.get(trainId.toLowerCase());
+        User user = users.get(userId);
+        if (train == null || user == null || train.getStations() == null || train.getStations().isEmpty()
+                || row < 0 || row >= train.getSeats().size() || col < 0 || col >= train.getSeats().get(row).size()
+                || !Integer.valueOf(SeatChange.AVAILABLE).equals(train.getSeats().get(row).get(col))) {
+            return null;
+        }
+        // The ticket keeps the train's route but not a reference to the live seat map
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), userId, train.getStations().get(0),
+                train.getStations().get(train.getStations().size() - 1), LocalDateTime.now().toString(),
+                new Train(train.getTrainId(), train.getTrainNo(), null, train.getStationTimes(), train.getStations()));
+        ticket.setSeatRow(row);
+        ticket.setSeatCol(col);
+        applyLocal(BookingMutation.seatState(train.getTrainId(), row, col, SeatChange.BOOKED));
+        applyLocal(BookingMutation.ticketAdded(userId, ticket));
+        return ticket;
+    }
+
+    // Cancels the user's ticket on a promoted node and frees its seat. Returns false if the
+    // user has no such ticket.
+    public synchronized boolean cancelTicket(String userId, String ticketId) {
+        if (log == null) {
+            throw new IllegalStateException("Replica is read-only until it is promoted");
+        }
+        User user = users.get(userId);
+        Ticket ticket = (user == null) ? null : user.getTicketsBooked().stream()
+                .filter(t -> t.getTicketId().equals(ticketId))
+                .findFirst()
+                .orElse(null);
+        if (ticket == null) {
+            return false;
+        }
+        applyLocal(BookingMutation.ticketRemoved(userId, ticketId));
+        if (ticket.getTrain() != null && ticket.getSeatRow() != null && ticket.getSeatCol() != null) {
+            applyLocal(BookingMutation.seatState(ticket.getTrain().getTrainId(),
+                    ticket.getSeatRow(), ticket.getSeatCol(), SeatChange.AVAILABLE));
+        }
+        return true;
+    }
+
+    public synchronized List<Train> searchTrains(String source, String destination) {
+        String lowerCaseSource = source.toLowerCase();
+        String lowerCaseDestination = destination.toLowerCase();
+        return trains.values().stream()
+                .filter(train -> TrainService.validTrain(train, lowerCaseSource, lowerCaseDestination))
+                .collect(Collectors.toList());
+    }
+
+    // Held seats (SeatChange.HELD) are not available, just like on the primary
+    public synchronized int getAvailableSeatsCount(String trainId) {
+        Train train = trains.get(trainId.toLowerCase());
+        if (train == null) {
+            return 0;
+        }
+        int count = 0;
+        for (List<Integer> row : train.getSeats()) {
+            for (Integer seatStatus : row) {
+                if (seatStatus != null && seatStatus == SeatChange.AVAILABLE) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    public synchronized List<Ticket> ticketsFor(String userId) {
+        User user = users.get(userId);
+        return (user != null) ? new ArrayList<>(user.getTicketsBooked()) : new ArrayList<>();
+    }
+
+    // Everything this replica knows, as upserts; used to seed replicas that follow it after promotion.
+    // The upserts carry copies: they are written out by the streaming threads while bookings go on.
+    public synchronized List<BookingMutation> snapshot() {
+        List<BookingMutation> snapshot = new ArrayList<>();
+        for (Train train : trains.values()) {
+            List<List<Integer>> seats = new ArrayList<>();
+            for (List<Integer> row : train.getSeats()) {
+                seats.add(new ArrayList<>(row));
+            }
+            snapshot.add(BookingMutation.trainUpsert(new Train(train.getTrainId(), train.getTrainNo(), seats,
+                    train.getStationTimes(), train.getStations())));
+        }
+        for (User user : users.values()) {
+            snapshot.add(BookingMutation.userUpsert(new User(user.getName(), null, user.getHashedPassword(),
+                    new ArrayList<>(user.getTicketsBooked()), user.getUserId())));
+        }
+        return snapshot;
+    }
+
+    // Writes trains.json and users.json so a full UserBookingService can take over from this node.
+    // Holds are not persisted on the primary either, so held seats are written as available.
+    public synchronized void exportTo(File trainsFile, File usersFile) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        List<Train> persistedTrains = new ArrayList<>();
+        for (Train train : trains.values()) {
+            List<List<Integer>> seats = new ArrayList<>();
+            for (List<Integer> row : train.getSeats()) {
+                seats.add(row.stream()
+                        .map(state -> state == SeatChange.HELD ? SeatChange.AVAILABLE : state)
+                        .collect(Collectors.toList()));
+            }
+            persistedTrains.add(new Train(train.getTrainId(), train.getTrainNo(), seats,
+                    train.getStationTimes(), train.getStations()));
+        }
+        objectMapper.writeValue(trainsFile, persistedTrains);
+        objectMapper.writeValue(usersFile, new ArrayList<>(users.values()));
+    }
+
+    public synchronized long getLastAppliedSequence() {
+        return lastAppliedSequence;
+    }
+
+    public synchronized String getLogId() {
+        return logId;
+    }
+
+    // Called for each new connection with the log the primary announced. Any snapshot left
+    // incomplete by the previous connection is dropped.
+    synchronized void beginStream(String primaryLogId) {
+        streamLogId = primaryLogId;
+        snapshotTrains = null;
+        snapshotUsers = null;
+    }
+
+    // Starts a new history under a fresh log ID, numbered on from the last applied sequence.
+    // Other replicas may have applied more of the old primary's log than this node did, so none
+    // of them can resume by sequence number; the new ID makes each one take a snapshot first.
+    // Seats held on the old primary can't be confirmed or expire here, so they are freed.
+    synchronized ReplicationLog promote(int retention) {
+        snapshotTrains = null;
+        snapshotUsers = null;
+        logId = UUID.randomUUID().toString();
+        log = new ReplicationLog(logId, lastAppliedSequence, retention);
+        for (Train train : trains.values()) {
+            List<List<Integer>> seats = train.getSeats();
+            for (int row = 0; row < seats.size(); row++) {
+                for (int col = 0; col < seats.get(row).size(); col++) {
+                    if (Integer.valueOf(SeatChange.HELD).equals(seats.get(row).get(col))) {
+                        applyLocal(BookingMutation.seatState(train.getTrainId(), row, col, SeatChange.AVAILABLE));
+                    }
+                }
+            }
+        }
+        return log;
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.replication;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+// First line exchanged in each direction when a replica connects.
+// The replica says which log it follows and how far it got; the primary answers with its own
+// log ID. A different log ID (e.g. the primary restarted) means the replica is re-seeded.
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ReplicationHandshake {
+
+    private String logId;
+    private long lastSequence;
+
+    // Default constructor for Jackson deserialization
+    public ReplicationHandshake() {}
+
+    public ReplicationHandshake(String logId, long lastSequence) {
+        this.logId = logId;
+        this.lastSequence = lastSequence;
+    }
+
+    public String getLogId() {
+        return logId;
+    }
+
+    public void setLogId(String logId) {
+        this.logId = logId;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public void setLastSequence(long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.replication;
+
+import org.example.entities.BookingMutation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Ordered, in-memory log of booking mutations with bounded retention.
+// Every appended mutation gets the next sequence number. Replicas that fall further
+// behind than the retained window are re-seeded from a snapshot instead.
+public class ReplicationLog {
+
+    private static final int DEFAULT_RETENTION = 100_000;
+
+    private final String logId; // Identifies this history; replicas of another log must be re-seeded
+    private final int retention;
+    private final BookingMutation[] ring; // Sequence n lives in slot n % retention
+    private final long startSequence;
+    private long lastSequence;
+
+    public ReplicationLog() {
+        this(UUID.randomUUID().toString(), 0, DEFAULT_RETENTION);
+    }
+
+    // 'startSequence' lets a promoted replica number its own history on from what it had applied
+    public ReplicationLog(String logId, long startSequence, int retention) {
+        this.logId = logId;
+        this.startSequence = startSequence;
+        this.lastSequence = startSequence;
+        this.retention = retention;
+        this.ring = new BookingMutation[retention];
+    }
+
+    public synchronized long append(BookingMutation mutation) {
+        mutation.setSequence(++lastSequence);
+        ring[(int) (lastSequence % retention)] = mutation; // Overwrites the oldest entry once full
+        notifyAll(); // Wake up replica streams waiting for new entries
+        return lastSequence;
+    }
+
+    public String getLogId() {
+        return logId;
+    }
+
+    public synchronized long lastSequence() {
+        return lastSequence;
+    }
+
+    // Returns up to 'max' mutations after 'afterSequence', waiting up to 'timeoutMillis' if there
+    // are none yet (an empty list means the wait timed out). Returns null if the entries after
+    // 'afterSequence' are no longer retained and the reader needs a snapshot.
+    public synchronized List<BookingMutation> readAfter(long afterSequence, int max, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (lastSequence <= afterSequence) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return new ArrayList<>();
+            }
+            wait(remaining);
+        }
+
+        long oldestRetained = Math.max(startSequence + 1, lastSequence - retention + 1);
+        if (afterSequence + 1 < oldestRetained) {
+            return null;
+        }
+        long last = Math.min(lastSequence, afterSequence + max);
+        List<BookingMutation> batch = new ArrayList<>((int) (last - afterSequence));
+        for (long sequence = afterSequence + 1; sequence <= last; sequence++) {
+            batch.add(ring[(int) (sequence % retention)]);
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,162 @@
+package org.example.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.entities.BookingMutation;
+import org.example.util.StorageFormat;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+// Streams the booking log to replicas over TCP, one JSON mutation per line.
+// A replica that is new, follows a different log, or has fallen out of the retained window
+// first receives a snapshot (upserts of every train and user between SNAPSHOT_BEGIN and
+// SNAPSHOT_END markers) and then the live stream.
+// Idle connections get a heartbeat every second so replicas notice a dead primary quickly.
+public class ReplicationPrimary {
+
+    private static final int BATCH_SIZE = 512;
+    private static final long HEARTBEAT_MILLIS = 1000;
+
+    private final int port;
+    private final ReplicationLog log;
+    private final Supplier<List<BookingMutation>> snapshotSupplier;
+    // Replicas read either encoding; -Dbooking.format.replication=COMPACT_JSON shrinks the stream
+    private final ObjectMapper objectMapper = StorageFormat.forTarget("replication").configure(new ObjectMapper());
+    private final List<Socket> replicas = new CopyOnWriteArrayList<>();
+    private ServerSocket serverSocket;
+    private volatile boolean running = false;
+
+    public ReplicationPrimary(int port, ReplicationLog log, Supplier<List<BookingMutation>> snapshotSupplier) {
+        this.port = port;
+        this.log = log;
+        this.snapshotSupplier = snapshotSupplier;
+    }
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port);
+        running = true;
+        Thread acceptor = new Thread(this::acceptReplicas, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        System.out.println("ReplicationPrimary: Streaming booking log " + log.getLogId() + " on port " + port + ".");
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+            for (Socket replica : replicas) {
+                replica.close();
+            }
+        } catch (IOException e) {
+            System.err.println("ReplicationPrimary: Error closing sockets: " + e.getMessage());
+        }
+    }
+
+    public int replicaCount() {
+        return replicas.size();
+    }
+
+    public ReplicationLog getLog() {
+        return log;
+    }
+
+    private void acceptReplicas() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                replicas.add(socket);
+                Thread streamer = new Thread(() -> streamTo(socket), "replication-stream-" + socket.getPort());
+                streamer.setDaemon(true);
+                streamer.start();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("ReplicationPrimary: Error accepting replica: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void streamTo(Socket socket) {
+        String replicaName = socket.getRemoteSocketAddress().toString();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+
+            String helloLine = reader.readLine();
+            if (helloLine == null) {
+                return; // Closed before saying hello
+            }
+            ReplicationHandshake hello = objectMapper.readValue(helloLine, ReplicationHandshake.class);
+            writeLine(writer, new ReplicationHandshake(log.getLogId(), log.lastSequence()));
+
+            long position = hello.getLastSequence();
+            boolean sameLog = log.getLogId().equals(hello.getLogId());
+            if (!sameLog || position <= 0 || position > log.lastSequence()) {
+                position = sendSnapshot(writer);
+            }
+            System.out.println("ReplicationPrimary: Replica " + replicaName + " connected at sequence " + position + ".");
+
+            while (running) {
+                List<BookingMutation> batch = log.readAfter(position, BATCH_SIZE, HEARTBEAT_MILLIS);
+                if (batch == null) {
+                    position = sendSnapshot(writer); // Replica fell out of the retained window
+                } else if (batch.isEmpty()) {
+                    writeLine(writer, new BookingMutation(BookingMutation.Type.HEARTBEAT));
+                } else {
+                    for (BookingMutation mutation : batch) {
+                        writeLine(writer, mutation);
+                    }
+                    position = batch.get(batch.size() - 1).getSequence();
+                }
+                writer.flush();
+            }
+        } catch (IOException e) {
+            System.out.println("ReplicationPrimary: Replica " + replicaName + " disconnected.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            replicas.remove(socket);
+        }
+    }
+
+    // Sends every train and user as they are now. Returns the sequence the replica continues from.
+    // Mutations appended while the snapshot is taken are replayed afterwards; that is harmless
+    // because every mutation carries full state rather than a relative change. The replica only
+    // takes on the snapshot's sequence at SNAPSHOT_END, so a connection lost half-way through
+    // gets a fresh snapshot instead of resuming after an incomplete one.
+    private long sendSnapshot(Writer writer) throws IOException {
+        long snapshotSequence = log.lastSequence();
+        writeLine(writer, snapshotMarker(BookingMutation.Type.SNAPSHOT_BEGIN, snapshotSequence));
+        for (BookingMutation mutation : snapshotSupplier.get()) {
+            mutation.setSequence(snapshotSequence);
+            writeLine(writer, mutation);
+        }
+        writeLine(writer, snapshotMarker(BookingMutation.Type.SNAPSHOT_END, snapshotSequence));
+        writer.flush();
+        return snapshotSequence;
+    }
+
+    private static BookingMutation snapshotMarker(BookingMutation.Type type, long sequence) {
+        BookingMutation marker = new BookingMutation(type);
+        marker.setSequence(sequence);
+        return marker;
+    }
+
+    private void writeLine(Writer writer, Object message) throws IOException {
+        writer.write(objectMapper.writeValueAsString(message));
+        writer.write('\n');
+    }
+}
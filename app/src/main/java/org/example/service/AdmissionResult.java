@@ -0,0 +1,69 @@
+package org.example.service;
+
+import java.time.Duration;
+
+// Outcome of a booking request that went through BookingAdmissionController.
+// 'retryAfter' is only set when the request was shed and trying again later makes sense.
+public class AdmissionResult {
+
+    public enum Status {
+        BOOKED,        // Admitted and the booking succeeded
+        FAILED,        // Admitted, but the booking itself failed (seat taken, invalid seat, ...)
+        RATE_LIMITED,  // The user sent too many requests in a short time
+        QUEUE_FULL,    // The train's request queue was full or the wait would be too long
+        SOLD_OUT       // The train has no seats left; rejected before doing any work
+    }
+
+    private final Status status;
+    private final Duration retryAfter;
+    private final String message;
+
+    private AdmissionResult(Status status, Duration retryAfter, String message) {
+        this.status = status;
+        this.retryAfter = retryAfter;
+        this.message = message;
+    }
+
+    public static AdmissionResult booked() {
+        return new AdmissionResult(Status.BOOKED, null, "Booked.");
+    }
+
+    public static AdmissionResult failed() {
+        return new AdmissionResult(Status.FAILED, null, "Booking failed.");
+    }
+
+    public static AdmissionResult rateLimited(Duration retryAfter) {
+        return new AdmissionResult(Status.RATE_LIMITED, retryAfter, "Too many requests.");
+    }
+
+    public static AdmissionResult queueFull(Duration retryAfter) {
+        return new AdmissionResult(Status.QUEUE_FULL, retryAfter, "Train is busy.");
+    }
+
+    public static AdmissionResult soldOut() {
+        return new AdmissionResult(Status.SOLD_OUT, null, "No seats left on this train.");
+    }
+
+    public boolean isBooked() {
+        return status == Status.BOOKED;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return (retryAfter != null)
+                ? message + " Retry after " + retryAfter.toMillis() + " ms."
+                : message;
+    }
+}
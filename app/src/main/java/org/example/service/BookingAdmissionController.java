@@ -0,0 +1,151 @@
+package org.example.service;
+
+import org.example.util.TokenBucket;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
+// Sits in front of booking during flash sales. Each request passes, in order:
+//   1. a per-user token bucket (rate limit),
+//   2. an inventory check (sold-out trains are rejected before any work is done),
+//   3. a bounded per-train queue, served in FIFO order by a fair lock.
+// Rejected requests carry a retry-after hint instead of piling onto the train.
+// A user's bucket is dropped once it has refilled (see evictIdleBuckets), so only users who
+// booked recently take up memory.
+public class BookingAdmissionController {
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 64;
+    private static final Duration DEFAULT_MAX_QUEUE_WAIT = Duration.ofSeconds(2);
+    private static final int DEFAULT_USER_BURST = 5;
+    private static final double DEFAULT_USER_REQUESTS_PER_SECOND = 1.0;
+    private static final long EVICTION_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final int queueCapacity;
+    private final long maxQueueWaitNanos;
+    private final int userBurst;
+    private final double userRequestsPerSecond;
+
+    private final Map<String, TrainQueue> trainQueues = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastEvictionNanos = new AtomicLong(System.nanoTime());
+
+    public BookingAdmissionController() {
+        this(DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_QUEUE_WAIT, DEFAULT_USER_BURST, DEFAULT_USER_REQUESTS_PER_SECOND);
+    }
+
+    public BookingAdmissionController(int queueCapacity, Duration maxQueueWait, int userBurst, double userRequestsPerSecond) {
+        this.queueCapacity = queueCapacity;
+        this.maxQueueWaitNanos = maxQueueWait.toNanos();
+        this.userBurst = userBurst;
+        this.userRequestsPerSecond = userRequestsPerSecond;
+    }
+
+    // Runs 'booking' for the user if the request is admitted.
+    // 'availableSeats' is consulted before queueing and again right before the booking runs.
+    public AdmissionResult submit(String userId, String trainId, IntSupplier availableSeats, BooleanSupplier booking) {
+        // 1. Per-user rate limit. The token is taken inside compute so eviction can't drop the
+        // bucket between lookup and use.
+        evictIdleBuckets();
+        long[] waitNanos = new long[1];
+        userBuckets.compute(userId, (k, bucket) -> {
+            TokenBucket current = (bucket != null) ? bucket : new TokenBucket(userBurst, userRequestsPerSecond);
+            waitNanos[0] = current.tryConsume();
+            return current;
+        });
+        if (waitNanos[0] > 0) {
+            return AdmissionResult.rateLimited(Duration.ofNanos(waitNanos[0]));
+        }
+
+        // 2. Early rejection once the train is sold out
+        if (availableSeats.getAsInt() <= 0) {
+            return AdmissionResult.soldOut();
+        }
+
+        // 3. Bounded per-train queue
+        TrainQueue queue = trainQueues.computeIfAbsent(trainId.toLowerCase(), k -> new TrainQueue(queueCapacity));
+        if (!queue.slots.tryAcquire()) {
+            return AdmissionResult.queueFull(queue.estimateDrainTime(queueCapacity));
+        }
+        try {
+            // Give up instead of waiting unboundedly; keeps latency bounded for everyone in the queue
+            if (!queue.lock.tryLock(maxQueueWaitNanos, TimeUnit.NANOSECONDS)) {
+                return AdmissionResult.queueFull(queue.estimateDrainTime(queue.depth()));
+            }
+            try {
+                // Inventory may have run out while we were waiting
+                if (availableSeats.getAsInt() <= 0) {
+                    return AdmissionResult.soldOut();
+                }
+                long start = System.nanoTime();
+                boolean booked = booking.getAsBoolean();
+                queue.recordServiceTime(System.nanoTime() - start);
+                return booked ? AdmissionResult.booked() : AdmissionResult.failed();
+            } finally {
+                queue.lock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return AdmissionResult.queueFull(queue.estimateDrainTime(queue.depth()));
+        } finally {
+            queue.slots.release();
+        }
+    }
+
+    // At most once per EVICTION_INTERVAL_NANOS, drops the buckets that have refilled completely.
+    // Forgetting a full bucket loses nothing: the user would get a full one back anyway.
+    private void evictIdleBuckets() {
+        long last = lastEvictionNanos.get();
+        long now = System.nanoTime();
+        if (now - last < EVICTION_INTERVAL_NANOS || !lastEvictionNanos.compareAndSet(last, now)) {
+            return;
+        }
+        for (String userId : userBuckets.keySet()) {
+            userBuckets.computeIfPresent(userId, (k, bucket) -> bucket.isFull() ? null : bucket);
+        }
+    }
+
+    // Number of users with a rate-limit bucket in memory
+    public int trackedUserCount() {
+        return userBuckets.size();
+    }
+
+    // Number of requests currently queued or running for the train
+    public int queueDepth(String trainId) {
+        TrainQueue queue = trainQueues.get(trainId.toLowerCase());
+        return (queue != null) ? queue.depth() : 0;
+    }
+
+    private static final class TrainQueue {
+        private static final long INITIAL_SERVICE_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+        private final int capacity;
+        private final Semaphore slots;
+        private final ReentrantLock lock = new ReentrantLock(true); // Fair: waiters are served FIFO
+        private volatile long avgServiceNanos = INITIAL_SERVICE_NANOS;
+
+        TrainQueue(int capacity) {
+            this.capacity = capacity;
+            this.slots = new Semaphore(capacity);
+        }
+
+        int depth() {
+            return capacity - slots.availablePermits();
+        }
+
+        // Exponentially weighted moving average, so the retry-after hint tracks current load
+        void recordServiceTime(long nanos) {
+            avgServiceNanos = (avgServiceNanos * 7 + nanos) / 8;
+        }
+
+        Duration estimateDrainTime(int requestsAhead) {
+            return Duration.ofNanos(Math.max(1, requestsAhead) * avgServiceNanos);
+        }
+    }
+}
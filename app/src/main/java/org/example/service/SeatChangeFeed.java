@@ -0,0 +1,268 @@
+package org.example.service;
+
+import org.example.entities.SeatChange;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// In-process publish/subscribe feed of seat-state deltas, one channel per train.
+// Watchers subscribe through java.util.concurrent.Flow instead of re-fetching the whole matrix.
+//  - Each channel numbers its changes 1, 2, 3, ... and keeps a bounded replay history,
+//    so a watcher can resume from the last sequence it saw.
+//  - A slow watcher never queues more than one pending change per seat: a newer change
+//    for the same seat replaces the older one (coalescing), so memory stays bounded.
+//  - If the requested sequence is older than the history, the watcher gets a full snapshot.
+public class SeatChangeFeed {
+
+    private static final int HISTORY_SIZE = 1024;
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final Function<String, List<List<Integer>>> snapshotSource;
+    private final Executor executor;
+    private final List<Consumer<SeatChange>> listeners = new CopyOnWriteArrayList<>();
+
+    // 'snapshotSource' returns the current seat states of a train (see SeatChange constants), or null
+    public SeatChangeFeed(Function<String, List<List<Integer>>> snapshotSource) {
+        this(snapshotSource, ForkJoinPool.commonPool());
+    }
+
+    public SeatChangeFeed(Function<String, List<List<Integer>>> snapshotSource, Executor executor) {
+        this.snapshotSource = snapshotSource;
+        this.executor = executor;
+    }
+
+    public void publish(String trainId, int row, int col, int state) {
+        channelFor(trainId).publish(row, col, state);
+    }
+
+    // Listeners see every change on every train synchronously, in publish order per train
+    public void addListener(Consumer<SeatChange> listener) {
+        listeners.add(listener);
+    }
+
+    // Last sequence number published for the train (0 if nothing has changed yet)
+    public long currentSequence(String trainId) {
+        return channelFor(trainId).currentSequence();
+    }
+
+    // A publisher for the train that replays changes after 'fromSequence' (pass 0 for a full snapshot)
+    public Flow.Publisher<SeatChange> publisher(String trainId, long fromSequence) {
+        return subscriber -> subscribe(trainId, fromSequence, subscriber);
+    }
+
+    public void subscribe(String trainId, long fromSequence, Flow.Subscriber<? super SeatChange> subscriber) {
+        Channel channel = channelFor(trainId);
+        FeedSubscription subscription = new FeedSubscription(channel, subscriber);
+        subscriber.onSubscribe(subscription);
+        channel.attach(subscription, fromSequence);
+    }
+
+    public int subscriberCount(String trainId) {
+        Channel channel = channels.get(trainId.toLowerCase());
+        return (channel != null) ? channel.subscriptions.size() : 0;
+    }
+
+    private Channel channelFor(String trainId) {
+        return channels.computeIfAbsent(trainId.toLowerCase(), k -> new Channel(trainId));
+    }
+
+    private static int seatKey(int row, int col) {
+        return (row << 16) | (col & 0xFFFF);
+    }
+
+    private final class Channel {
+        private final String trainId;
+        private final ArrayDeque<SeatChange> history = new ArrayDeque<>(HISTORY_SIZE);
+        private final List<FeedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+        private long sequence = 0;
+
+        Channel(String trainId) {
+            this.trainId = trainId;
+        }
+
+        synchronized long currentSequence() {
+            return sequence;
+        }
+
+        synchronized void publish(int row, int col, int state) {
+            SeatChange change = new SeatChange(trainId, ++sequence, row, col, state);
+            if (history.size() == HISTORY_SIZE) {
+                history.removeFirst();
+            }
+            history.addLast(change);
+            for (Consumer<SeatChange> listener : listeners) {
+                listener.accept(change);
+            }
+            for (FeedSubscription subscription : subscriptions) {
+                subscription.enqueue(change);
+            }
+        }
+
+        void attach(FeedSubscription subscription, long fromSequence) {
+            synchronized (this) {
+                if (canReplay(fromSequence)) {
+                    // Registered under the channel lock so no change slips between the replay and live updates
+                    replay(subscription, fromSequence);
+                    subscriptions.add(subscription);
+                    return;
+                }
+            }
+
+            // The snapshot is taken outside the channel lock: the source may block publishers
+            // (e.g. with a train lock), and publishers already hold that lock when they publish.
+            long snapshotSequence = currentSequence();
+            List<List<Integer>> seats = snapshotSource.apply(trainId);
+            synchronized (this) {
+                if (seats != null) {
+                    // Every seat is sent with the sequence it was read at; the watcher resumes from there
+                    for (int row = 0; row < seats.size(); row++) {
+                        List<Integer> seatRow = seats.get(row);
+                        for (int col = 0; col < seatRow.size(); col++) {
+                            subscription.enqueue(new SeatChange(trainId, snapshotSequence, row, col, seatRow.get(col)));
+                        }
+                    }
+                }
+                // Changes made while the snapshot was read. Re-sending one the snapshot already
+                // reflects is harmless, since every change carries the seat's full state.
+                replay(subscription, snapshotSequence);
+                subscriptions.add(subscription);
+            }
+        }
+
+        // 0 means "I have nothing"; a sequence from the future means the feed was restarted
+        private boolean canReplay(long fromSequence) {
+            SeatChange oldest = history.peekFirst();
+            return fromSequence > 0 && fromSequence <= sequence
+                    && (fromSequence == sequence || (oldest != null && fromSequence >= oldest.getSequence() - 1));
+        }
+
+        private void replay(FeedSubscription subscription, long fromSequence) {
+            for (SeatChange change : history) {
+                if (change.getSequence() > fromSequence) {
+                    subscription.enqueue(change);
+                }
+            }
+        }
+
+        void detach(FeedSubscription subscription) {
+            subscriptions.remove(subscription);
+        }
+    }
+
+    private final class FeedSubscription implements Flow.Subscription {
+        private final Channel channel;
+        private final Flow.Subscriber<? super SeatChange> subscriber;
+        // Pending changes in publish order, at most one per seat
+        private final LinkedHashMap<Integer, SeatChange> pending = new LinkedHashMap<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private long demand = 0;
+        private volatile boolean cancelled = false;
+        private volatile Throwable error; // Delivered by drain, so it never overlaps onNext
+
+        FeedSubscription(Channel channel, Flow.Subscriber<? super SeatChange> subscriber) {
+            this.channel = channel;
+            this.subscriber = subscriber;
+        }
+
+        void enqueue(SeatChange change) {
+            if (cancelled || error != null) {
+                return;
+            }
+            synchronized (this) {
+                int key = seatKey(change.getRow(), change.getCol());
+                pending.remove(key); // Re-insert so the entry moves to the end, keeping sequence order
+                pending.put(key, change);
+            }
+            scheduleDrain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                channel.detach(this);
+                error = new IllegalArgumentException("Demand must be positive: " + n);
+                scheduleDrain();
+                return;
+            }
+            synchronized (this) {
+                demand = (demand + n < 0) ? Long.MAX_VALUE : demand + n; // Saturate on overflow
+            }
+            scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            channel.detach(this);
+        }
+
+        private void scheduleDrain() {
+            // Only one drain runs at a time; extra requests just make it loop again
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (terminated()) {
+                    return;
+                }
+                List<SeatChange> batch = takeBatch();
+                for (SeatChange change : batch) {
+                    if (terminated()) {
+                        return;
+                    }
+                    try {
+                        subscriber.onNext(change);
+                    } catch (RuntimeException e) {
+                        cancel();
+                        subscriber.onError(e);
+                        return;
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        // Called only from drain. Delivers a pending error at most once.
+        private boolean terminated() {
+            if (cancelled) {
+                return true;
+            }
+            Throwable failure = error;
+            if (failure != null) {
+                cancel(); // Also detaches a subscription that failed before it was attached
+                subscriber.onError(failure);
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized List<SeatChange> takeBatch() {
+            List<SeatChange> batch = new ArrayList<>();
+            Iterator<SeatChange> it = pending.values().iterator();
+            while (demand > 0 && it.hasNext()) {
+                batch.add(it.next());
+                it.remove();
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+            }
+            return batch;
+        }
+    }
+}
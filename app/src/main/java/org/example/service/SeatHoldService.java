@@ -0,0 +1,164 @@
+package org.example.service;
+
+import org.example.entities.SeatHold;
+import org.example.util.HashedTimingWheel;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Keeps seats reserved for a limited time while checkout (e.g. payment) runs.
+// Expiry is driven by a hashed timing wheel, so no per-hold timers and no scans.
+public class SeatHoldService {
+
+    public static final Duration DEFAULT_HOLD_TTL = Duration.ofMinutes(10);
+    private static final long TICK_MILLIS = 100;
+    private static final int WHEEL_SIZE = 512;
+
+    private final Duration holdTtl;
+    private final Consumer<SeatHold> expiryListener;
+    private final HashedTimingWheel<SeatHold> expiryWheel;
+
+    // holdId -> pending timeout (the timeout's payload is the hold itself)
+    private final Map<String, HashedTimingWheel.Timeout<SeatHold>> holdsById = new ConcurrentHashMap<>();
+    // Lower-cased trainId -> (packed row/col -> hold), used for the "is this seat held?" checks.
+    // Train IDs are matched case-insensitively, like the train locks and the seat change feed.
+    private final Map<String, Map<Integer, SeatHold>> holdsByTrain = new ConcurrentHashMap<>();
+
+    public SeatHoldService() {
+        this(DEFAULT_HOLD_TTL);
+    }
+
+    public SeatHoldService(Duration holdTtl) {
+        this(holdTtl, hold -> {});
+    }
+
+    // 'expiryListener' is told about each hold that runs out, after it has been removed
+    public SeatHoldService(Duration holdTtl, Consumer<SeatHold> expiryListener) {
+        this.holdTtl = holdTtl;
+        this.expiryListener = expiryListener;
+        this.expiryWheel = new HashedTimingWheel<>(TICK_MILLIS, TimeUnit.MILLISECONDS, WHEEL_SIZE, this::expire);
+    }
+
+    // Places a hold on the seat for the user. Returns null if the seat is already held.
+    // The caller is responsible for checking that the seat itself is not booked.
+    public synchronized SeatHold placeHold(String userId, String trainId, int row, int col) {
+        Map<Integer, SeatHold> trainHolds = holdsByTrain.computeIfAbsent(trainKey(trainId), k -> new HashMap<>());
+        int key = seatKey(row, col);
+        if (trainHolds.containsKey(key)) {
+            return null; // Someone (possibly this user) already holds this seat
+        }
+
+        SeatHold hold = new SeatHold(UUID.randomUUID().toString(), userId, trainId, row, col,
+                System.currentTimeMillis() + holdTtl.toMillis());
+        trainHolds.put(key, hold);
+        holdsById.put(hold.getHoldId(), expiryWheel.schedule(hold, holdTtl.toMillis(), TimeUnit.MILLISECONDS));
+        return hold;
+    }
+
+    public SeatHold getHold(String holdId) {
+        HashedTimingWheel.Timeout<SeatHold> timeout = holdsById.get(holdId);
+        return (timeout != null) ? timeout.getPayload() : null;
+    }
+
+    // Removes the hold if it is still live and owned by the user. Returns the removed hold,
+    // or null if it has expired, was released, or belongs to someone else.
+    public synchronized SeatHold releaseHold(String holdId, String userId) {
+        HashedTimingWheel.Timeout<SeatHold> timeout = holdsById.get(holdId);
+        if (timeout == null || !timeout.getPayload().getUserId().equals(userId)) {
+            return null;
+        }
+        timeout.cancel();
+        removeHold(timeout.getPayload());
+        return timeout.getPayload();
+    }
+
+    // Removes the user's hold on the seat, e.g. once they have booked it directly. Returns the
+    // removed hold, or null if the user holds no such seat.
+    public synchronized SeatHold releaseSeat(String trainId, int row, int col, String userId) {
+        Map<Integer, SeatHold> trainHolds = holdsByTrain.get(trainKey(trainId));
+        SeatHold hold = (trainHolds != null) ? trainHolds.get(seatKey(row, col)) : null;
+        if (hold == null || !hold.getUserId().equals(userId)) {
+            return null;
+        }
+        holdsById.get(hold.getHoldId()).cancel();
+        removeHold(hold);
+        return hold;
+    }
+
+    // True if the seat is held by anyone other than the given user (userId may be null)
+    public synchronized boolean isHeldByOther(String trainId, int row, int col, String userId) {
+        Map<Integer, SeatHold> trainHolds = holdsByTrain.get(trainKey(trainId));
+        if (trainHolds == null) {
+            return false;
+        }
+        SeatHold hold = trainHolds.get(seatKey(row, col));
+        return hold != null && !hold.getUserId().equals(userId);
+    }
+
+    // Number of seats on the train held by users other than the given one (userId may be null)
+    public synchronized int heldSeatCount(String trainId, String excludingUserId) {
+        Map<Integer, SeatHold> trainHolds = holdsByTrain.get(trainKey(trainId));
+        if (trainHolds == null) {
+            return 0;
+        }
+        int count = 0;
+        for (SeatHold hold : trainHolds.values()) {
+            if (!hold.getUserId().equals(excludingUserId)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Current holds on the train, e.g. to overlay them on a seat map
+    public synchronized List<SeatHold> holdsOnTrain(String trainId) {
+        Map<Integer, SeatHold> trainHolds = holdsByTrain.get(trainKey(trainId));
+        return (trainHolds != null) ? new ArrayList<>(trainHolds.values()) : new ArrayList<>();
+    }
+
+    public int activeHoldCount() {
+        return holdsById.size();
+    }
+
+    public void shutdown() {
+        expiryWheel.stop();
+    }
+
+    // Called from the timing wheel's ticker thread when a hold's TTL runs out
+    private void expire(SeatHold hold) {
+        synchronized (this) {
+            if (holdsById.get(hold.getHoldId()) == null) {
+                return; // Confirmed or released in the meantime
+            }
+            removeHold(hold);
+        }
+        System.out.println("SeatHoldService: Hold " + hold.getHoldId() + " on train " + hold.getTrainId() + " expired.");
+        expiryListener.accept(hold); // Outside the lock; listeners may take train locks
+    }
+
+    private void removeHold(SeatHold hold) {
+        holdsById.remove(hold.getHoldId());
+        Map<Integer, SeatHold> trainHolds = holdsByTrain.get(trainKey(hold.getTrainId()));
+        if (trainHolds != null) {
+            trainHolds.remove(seatKey(hold.getRow(), hold.getCol()));
+            if (trainHolds.isEmpty()) {
+                holdsByTrain.remove(trainKey(hold.getTrainId()));
+            }
+        }
+    }
+
+    private static String trainKey(String trainId) {
+        return trainId.toLowerCase();
+    }
+
+    private static int seatKey(int row, int col) {
+        return (row << 16) | (col & 0xFFFF);
+    }
+}
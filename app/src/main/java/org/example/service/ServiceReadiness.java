@@ -0,0 +1,10 @@
+package org.example.service;
+
+// Startup progress of UserBookingService. Trains and users load in parallel; train searches
+// and seat maps can be served from TRAINS_READY, sign-up, login and bookings from READY.
+public enum ServiceReadiness {
+    STARTING,
+    TRAINS_READY,
+    READY,
+    FAILED
+}
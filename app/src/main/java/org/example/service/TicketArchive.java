@@ -0,0 +1,306 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.entities.ArchivedTicket;
+import org.example.entities.Ticket;
+import org.example.entities.Train;
+import org.example.util.StorageFormat;
+import org.example.util.TicketCodec;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Cold storage for tickets that left users.json (see ArchivedTicket). Append-only and partitioned by the month of the ticket's dateOfTravel:
+// archive/2024-05/00000.jsonl.gz, 00001.jsonl.gz, ...
+// Every append writes one gzip member per month to that month's current segment; the members
+// of a segment still form one valid gzip file. Next to each segment, an .idx file lists which
+// users have records in which member, so a user's history is read by decompressing only those
+// members. Only this sparse index is kept in memory.
+// A member holds JSON lines or, with -Dbooking.format.archive=BINARY, TicketCodec records;
+// reads tell them apart by the first byte, so both kinds can share a segment.
+public class TicketArchive {
+
+    private static final String DEFAULT_ARCHIVE_DIR = "src/main/resources/localDB/archive";
+    private static final long MAX_SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final String SEGMENT_SUFFIX = ".jsonl.gz";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    // One gzip member within a segment file
+    private static final class Block {
+        private final File segment;
+        private final long offset;
+        private final int length;
+
+        Block(File segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private final File directory;
+    private final StorageFormat format = StorageFormat.forTarget("archive");
+    private final ObjectMapper objectMapper = format.configure(new ObjectMapper());
+    private final Map<String, List<Block>> blocksByUser = new HashMap<>();
+
+    public TicketArchive() throws IOException {
+        this(new File(DEFAULT_ARCHIVE_DIR));
+    }
+
+    public TicketArchive(File directory) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create archive directory " + directory);
+        }
+        this.directory = directory;
+        loadIndexes();
+    }
+
+    private void loadIndexes() throws IOException {
+        File[] months = directory.listFiles(File::isDirectory);
+        if (months == null) {
+            return;
+        }
+        Arrays.sort(months);
+        for (File month : months) {
+            File[] indexes = month.listFiles((dir, name) -> name.endsWith(INDEX_SUFFIX));
+            if (indexes == null) {
+                continue;
+            }
+            Arrays.sort(indexes);
+            for (File index : indexes) {
+                File segment = segmentFor(index);
+                long segmentLength = segment.length();
+                for (String line : Files.readAllLines(index.toPath(), StandardCharsets.UTF_8)) {
+                    String[] parts = line.split("\t");
+                    if (parts.length != 3) {
+                        continue; // Torn last line after a crash
+                    }
+                    long offset = Long.parseLong(parts[1]);
+                    int length = Integer.parseInt(parts[2]);
+                    if (offset + length <= segmentLength) {
+                        blocksByUser.computeIfAbsent(parts[0], k -> new ArrayList<>()).add(new Block(segment, offset, length));
+                    }
+                }
+            }
+        }
+    }
+
+    // Archives the records, each under its ticket's user ID. Nothing is indexed until its
+    // segment bytes are on disk, so a crash can at worst leave unreferenced bytes behind.
+    public synchronized void append(List<ArchivedTicket> records) throws IOException {
+        Map<String, List<ArchivedTicket>> byMonth = new TreeMap<>();
+        for (ArchivedTicket record : records) {
+            byMonth.computeIfAbsent(partitionOf(record), k -> new ArrayList<>()).add(record);
+        }
+        for (Map.Entry<String, List<ArchivedTicket>> partition : byMonth.entrySet()) {
+            File month = new File(directory, partition.getKey());
+            if (!month.exists() && !month.mkdirs()) {
+                throw new IOException("Cannot create archive partition " + month);
+            }
+            File segment = currentSegment(month);
+            byte[] member = compress(partition.getValue());
+            long offset = segment.length();
+            try (FileOutputStream out = new FileOutputStream(segment, true)) {
+                out.write(member);
+                out.getFD().sync();
+            }
+
+            Set<String> users = new LinkedHashSet<>();
+            partition.getValue().forEach(record -> users.add(record.getTicket().getUserId()));
+            try (FileOutputStream out = new FileOutputStream(indexFor(segment), true);
+                 Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+                for (String userId : users) {
+                    writer.write(userId + "\t" + offset + "\t" + member.length + "\n");
+                }
+                writer.flush();
+                out.getFD().sync();
+            }
+            Block block = new Block(segment, offset, member.length);
+            users.forEach(userId -> blocksByUser.computeIfAbsent(userId, k -> new ArrayList<>()).add(block));
+        }
+    }
+
+    // The user's archived tickets, oldest partition first. Only the members that hold records
+    // of this user are read. A ticket archived twice (e.g. after a crash) appears once.
+    public List<ArchivedTicket> historyFor(String userId) throws IOException {
+        List<Block> blocks;
+        synchronized (this) {
+            blocks = new ArrayList<>(blocksByUser.getOrDefault(userId, Collections.emptyList()));
+        }
+        Map<String, ArchivedTicket> byTicketId = new LinkedHashMap<>();
+        for (Block block : blocks) {
+            for (ArchivedTicket record : read(block)) {
+                if (userId.equals(record.getTicket().getUserId())) {
+                    byTicketId.put(record.getTicket().getTicketId(), record);
+                }
+            }
+        }
+        return new ArrayList<>(byTicketId.values());
+    }
+
+    private List<ArchivedTicket> read(Block block) throws IOException {
+        byte[] member = new byte[block.length];
+        try (RandomAccessFile file = new RandomAccessFile(block.segment, "r")) {
+            file.seek(block.offset);
+            file.readFully(member);
+        }
+        byte[] content;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(member))) {
+            content = in.readAllBytes();
+        }
+        List<ArchivedTicket> records = new ArrayList<>();
+        if (content.length > 0 && content[0] == '{') {
+            // JSON lines
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new ByteArrayInputStream(content), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    records.add(objectMapper.readValue(line, ArchivedTicket.class));
+                }
+            }
+        } else {
+            // Binary records, each starting with its version byte
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(content));
+            while (in.available() > 0) {
+                records.add(TicketCodec.readArchived(in));
+            }
+        }
+        return records;
+    }
+
+    private byte[] compress(List<ArchivedTicket> records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (format == StorageFormat.BINARY) {
+            try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+                for (ArchivedTicket record : records) {
+                    TicketCodec.writeArchived(out, record); // Leaves out the seat map by design
+                }
+            }
+            return bytes.toByteArray();
+        }
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+            for (ArchivedTicket record : records) {
+                writer.write(objectMapper.writeValueAsString(forArchive(record)));
+                writer.write('\n');
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    // The booked train's seat map is a snapshot of no use to history; leave it out
+    private static ArchivedTicket forArchive(ArchivedTicket record) {
+        Ticket ticket = record.getTicket();
+        Train train = ticket.getTrain();
+        if (train == null) {
+            return record;
+        }
+        Ticket copy = new Ticket(ticket.getTicketId(), ticket.getUserId(), ticket.getSource(), ticket.getDestination(),
+                ticket.getDateOfTravel(), new Train(train.getTrainId(), train.getTrainNo(), null,
+                        train.getStationTimes(), train.getStations()));
+        copy.setSeatRow(ticket.getSeatRow());
+        copy.setSeatCol(ticket.getSeatCol());
+        return new ArchivedTicket(copy, record.getStatus(), record.getArchivedAt());
+    }
+
+    // Newest segment of the month, or a fresh one once it has grown past MAX_SEGMENT_BYTES
+    private static File currentSegment(File month) {
+        File[] segments = month.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        int number = 0;
+        if (segments != null && segments.length > 0) {
+            Arrays.sort(segments);
+            File last = segments[segments.length - 1];
+            number = Integer.parseInt(last.getName().substring(0, last.getName().length() - SEGMENT_SUFFIX.length()));
+            if (last.length() >= MAX_SEGMENT_BYTES) {
+                number++;
+            }
+        }
+        return new File(month, String.format("%05d%s", number, SEGMENT_SUFFIX));
+    }
+
+    private static File indexFor(File segment) {
+        String name = segment.getName();
+        return new File(segment.getParentFile(), name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    private static File segmentFor(File index) {
+        String name = index.getName();
+        return new File(index.getParentFile(), name.substring(0, name.length() - INDEX_SUFFIX.length()) + SEGMENT_SUFFIX);
+    }
+
+    // Month of travel, or of archiving when the travel date can't be read
+    private static String partitionOf(ArchivedTicket record) {
+        Instant travel = travelTime(record.getTicket());
+        Instant when = (travel != null) ? travel : Instant.ofEpochMilli(record.getArchivedAt());
+        return MONTH.format(when.atZone(ZoneId.systemDefault()));
+    }
+
+    // Parses the ticket's dateOfTravel. Tickets booked with a journey date store a plain date;
+    // older ones hold their booking time, as an instant ("...Z") or a local date-time.
+    // Returns null if it can't be read.
+    public static Instant travelTime(Ticket ticket) {
+        String date = ticket.getDateOfTravel();
+        if (date == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(date);
+        } catch (DateTimeParseException notAnInstant) {
+            // Try the local forms below
+        }
+        try {
+            return LocalDateTime.parse(date).atZone(ZoneId.systemDefault()).toInstant();
+        } catch (DateTimeParseException notADateTime) {
+            // Try a plain date
+        }
+        try {
+            return LocalDate.parse(date).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // True once the journey date of the ticket lies before 'today'. Only plain dates count: a
+    // dateOfTravel with a time of day is the booking time of an older ticket, not a journey.
+    public static boolean travelledBefore(Ticket ticket, LocalDate today) {
+        String date = ticket.getDateOfTravel();
+        if (date == null) {
+            return false;
+        }
+        try {
+            return LocalDate.parse(date).isBefore(today);
+        } catch (DateTimeParseException notAJourneyDate) {
+            return false;
+        }
+    }
+}
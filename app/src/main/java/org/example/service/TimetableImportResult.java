@@ -0,0 +1,50 @@
+package org.example.service;
+
+import java.util.Collections;
+import java.util.List;
+
+// Outcome of a TimetableImporter run. Trains with any invalid stop are left out as a whole;
+// 'errors' describes why (capped, see TimetableImporter.MAX_REPORTED_ERRORS).
+public class TimetableImportResult {
+
+    private final int stopsRead;
+    private final int trainsImported;
+    private final int trainsRejected;
+    private final int catalogueSize;
+    private final List<String> errors;
+
+    TimetableImportResult(int stopsRead, int trainsImported, int trainsRejected, int catalogueSize, List<String> errors) {
+        this.stopsRead = stopsRead;
+        this.trainsImported = trainsImported;
+        this.trainsRejected = trainsRejected;
+        this.catalogueSize = catalogueSize;
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    public int getStopsRead() {
+        return stopsRead;
+    }
+
+    public int getTrainsImported() {
+        return trainsImported;
+    }
+
+    public int getTrainsRejected() {
+        return trainsRejected;
+    }
+
+    // Number of trains in the catalogue after the import was committed
+    public int getCatalogueSize() {
+        return catalogueSize;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return "Imported " + trainsImported + " trains from " + stopsRead + " stops ("
+                + trainsRejected + " rejected); catalogue now has " + catalogueSize + " trains.";
+    }
+}
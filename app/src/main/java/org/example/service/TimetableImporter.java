@@ -0,0 +1,478 @@
+package org.example.service;
+
+import org.example.entities.SeatChange;
+import org.example.entities.Train;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Bulk import of a timetable in stop_times form: one CSV row per (train, stop). Plain
+// "train_id,train_no,stop_sequence,station,departure_time" files and GTFS stop_times.txt
+// (trip_id, stop_id/stop_name, arrival_time, departure_time, stop_sequence) both work.
+//
+// The file is streamed in three stages: the calling thread reads batches of lines into a
+// bounded queue, a pool of workers parses and validates them and groups the stops by train,
+// and the groups are turned into Train records in parallel. The result is committed with one
+// TrainService.replaceCatalogue call, i.e. one index build, one atomic swap and one file write.
+//
+// The swap only reaches the TrainService it was given. While the app is running, import through
+// UserBookingService.importTimetable; main() loads its own copy of trains.json and is meant for
+// offline use, since a running app would not see the change and would overwrite the file.
+public class TimetableImporter {
+
+    static final int MAX_REPORTED_ERRORS = 100;
+    private static final int BATCH_SIZE = 2048;
+    private static final int DEFAULT_SEAT_ROWS = 4;
+    private static final int DEFAULT_SEAT_COLS = 6;
+    // GTFS times may run past midnight, e.g. 25:10:00 for 01:10 the next day
+    private static final Pattern TIME = Pattern.compile("(\\d{1,2}):(\\d{2})(?::(\\d{2}))?");
+
+    public enum Mode {
+        MERGE,   // Imported trains are added or replace trains with the same ID; others stay
+        REPLACE  // The catalogue becomes exactly the imported trains
+    }
+
+    private final TrainService trainService;
+    private final int workers;
+    private final int seatRows;
+    private final int seatCols;
+
+    public TimetableImporter(TrainService trainService) {
+        this(trainService, Runtime.getRuntime().availableProcessors(), DEFAULT_SEAT_ROWS, DEFAULT_SEAT_COLS);
+    }
+
+    // 'seatRows' x 'seatCols' is the seat layout given to trains that are new to the catalogue
+    public TimetableImporter(TrainService trainService, int workers, int seatRows, int seatCols) {
+        this.trainService = trainService;
+        this.workers = Math.max(1, workers);
+        this.seatRows = seatRows;
+        this.seatCols = seatCols;
+    }
+
+    // Lines handed from the reader to the workers; 'firstLine' is the file line number of lines[0]
+    private static final class Batch {
+        private final long firstLine;
+        private final List<String> lines;
+
+        Batch(long firstLine, List<String> lines) {
+            this.firstLine = firstLine;
+            this.lines = lines;
+        }
+    }
+
+    private static final Batch END = new Batch(-1, Collections.emptyList());
+
+    private static final class StopTime {
+        private final String trainId;
+        private final String trainNo;
+        private final int sequence;
+        private final String station;
+        private final String time;
+
+        StopTime(String trainId, String trainNo, int sequence, String station, String time) {
+            this.trainId = trainId;
+            this.trainNo = trainNo;
+            this.sequence = sequence;
+            this.station = station;
+            this.time = time;
+        }
+    }
+
+    // What one worker collected: valid stops grouped by train (lower-case ID) and the trains it
+    // found a bad row for, with the first reason
+    private static final class Partial {
+        private final Map<String, List<StopTime>> stopsByTrain = new HashMap<>();
+        private final Map<String, String> rejected = new HashMap<>();
+        private final List<String> errors = new ArrayList<>(); // Rows without a usable train ID
+        private int stops;
+    }
+
+    // Positions of the columns we use, resolved from the header row
+    private static final class Columns {
+        private final int trainId;
+        private final int trainNo;
+        private final int sequence;
+        private final int station;
+        private final int departure;
+        private final int arrival;
+
+        private Columns(List<String> header) throws IOException {
+            List<String> names = header.stream().map(name -> name.trim().toLowerCase()).collect(Collectors.toList());
+            trainId = required(names, "train_id", "trip_id");
+            trainNo = firstOf(names, "train_no", "trip_short_name");
+            sequence = required(names, "stop_sequence");
+            station = required(names, "station", "stop_name", "stop_id");
+            departure = firstOf(names, "departure_time");
+            arrival = firstOf(names, "arrival_time");
+            if (departure < 0 && arrival < 0) {
+                throw new IOException("Timetable header needs departure_time or arrival_time: " + header);
+            }
+        }
+
+        private static int required(List<String> names, String... candidates) throws IOException {
+            int index = firstOf(names, candidates);
+            if (index < 0) {
+                throw new IOException("Timetable header is missing column " + String.join(" or ", candidates) + ": " + names);
+            }
+            return index;
+        }
+
+        private static int firstOf(List<String> names, String... candidates) {
+            for (String candidate : candidates) {
+                int index = names.indexOf(candidate);
+                if (index >= 0) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+    }
+
+    public TimetableImportResult importFile(File stopTimesFile, Mode mode) throws IOException {
+        return importFile(stopTimesFile, mode, train -> false);
+    }
+
+    // As above, but a REPLACE that would drop a train matching inUse (e.g. one with booked
+    // seats) fails with an IOException naming those trains, and the catalogue stays as it was
+    public TimetableImportResult importFile(File stopTimesFile, Mode mode, Predicate<Train> inUse) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(stopTimesFile.toPath(), StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IOException("Timetable file is empty: " + stopTimesFile);
+            }
+            if (header.startsWith("\uFEFF")) {
+                header = header.substring(1); // Byte order mark, common in exported CSVs
+            }
+            Columns columns = new Columns(parseCsvLine(header));
+
+            List<Partial> partials = readAndParse(reader, columns);
+            return commit(partials, mode, inUse);
+        }
+    }
+
+    // Stages 1 and 2: stream lines to the parser pool and collect what each worker grouped
+    private List<Partial> readAndParse(BufferedReader reader, Columns columns) throws IOException {
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(workers * 2); // Bounds memory on huge files
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "timetable-parser");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Partial>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(pool.submit(() -> parseBatches(queue, columns)));
+            }
+
+            long lineNumber = 1; // The header
+            long firstLine = 2;
+            List<String> lines = new ArrayList<>(BATCH_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lines.isEmpty()) {
+                    firstLine = lineNumber;
+                }
+                lines.add(line);
+                if (lines.size() == BATCH_SIZE) {
+                    queue.put(new Batch(firstLine, lines));
+                    lines = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!lines.isEmpty()) {
+                queue.put(new Batch(firstLine, lines));
+            }
+            for (int i = 0; i < workers; i++) {
+                queue.put(END);
+            }
+
+            List<Partial> partials = new ArrayList<>();
+            for (Future<Partial> future : futures) {
+                partials.add(future.get());
+            }
+            return partials;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Timetable import interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Timetable parser failed: " + e.getCause(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Partial parseBatches(BlockingQueue<Batch> queue, Columns columns) throws InterruptedException {
+        Partial partial = new Partial();
+        Batch batch;
+        while ((batch = queue.take()) != END) {
+            long lineNumber = batch.firstLine;
+            for (String line : batch.lines) {
+                parseLine(line, lineNumber++, columns, partial);
+            }
+        }
+        return partial;
+    }
+
+    private static void parseLine(String line, long lineNumber, Columns columns, Partial partial) {
+        if (line.trim().isEmpty()) {
+            return;
+        }
+        String trainKey = null;
+        try {
+            List<String> fields = parseCsvLine(line);
+            String trainId = field(fields, columns.trainId);
+            if (trainId.isEmpty()) {
+                throw new IllegalArgumentException("missing train ID");
+            }
+            trainKey = trainId.toLowerCase();
+            if (partial.rejected.containsKey(trainKey)) {
+                return; // The train is already out
+            }
+            String station = field(fields, columns.station).toLowerCase(); // Searches match lower-case names
+            if (station.isEmpty()) {
+                throw new IllegalArgumentException("missing station");
+            }
+            int sequence = Integer.parseInt(field(fields, columns.sequence));
+            String time = field(fields, columns.departure);
+            if (time.isEmpty()) {
+                time = field(fields, columns.arrival);
+            }
+            String trainNo = field(fields, columns.trainNo);
+            StopTime stop = new StopTime(trainId, trainNo.isEmpty() ? trainId : trainNo, sequence, station, normalizeTime(time));
+            partial.stopsByTrain.computeIfAbsent(trainKey, k -> new ArrayList<>()).add(stop);
+            partial.stops++;
+        } catch (RuntimeException e) {
+            String message = "Line " + lineNumber + ": " + describe(e);
+            if (trainKey != null) {
+                partial.rejected.putIfAbsent(trainKey, message);
+            } else {
+                partial.errors.add(message);
+            }
+        }
+    }
+
+    private static String describe(RuntimeException e) {
+        return (e instanceof NumberFormatException) ? "invalid stop_sequence" : e.getMessage();
+    }
+
+    private static String field(List<String> fields, int index) {
+        return (index >= 0 && index < fields.size()) ? fields.get(index).trim() : "";
+    }
+
+    // "7:05" -> "07:05:00"; rejects anything that isn't a clock time
+    static String normalizeTime(String time) {
+        Matcher matcher = TIME.matcher(time);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException(time.isEmpty() ? "missing time" : "invalid time '" + time + "'");
+        }
+        int hours = Integer.parseInt(matcher.group(1));
+        int minutes = Integer.parseInt(matcher.group(2));
+        int seconds = (matcher.group(3) != null) ? Integer.parseInt(matcher.group(3)) : 0;
+        if (hours > 47 || minutes > 59 || seconds > 59) {
+            throw new IllegalArgumentException("invalid time '" + time + "'");
+        }
+        return String.format("%02d:%02d:%02d", hours, minutes, seconds);
+    }
+
+    // Splits one CSV row; handles quoted fields with embedded commas and "" escapes
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quote");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Stage 3: merge the workers' groups, build the trains in parallel and swap them in
+    private TimetableImportResult commit(List<Partial> partials, Mode mode, Predicate<Train> inUse) throws IOException {
+        Map<String, List<StopTime>> stopsByTrain = new HashMap<>();
+        Map<String, String> rejected = new ConcurrentHashMap<>();
+        List<String> errors = new ArrayList<>();
+        int stops = 0;
+        for (Partial partial : partials) {
+            partial.stopsByTrain.forEach((key, list) -> stopsByTrain.computeIfAbsent(key, k -> new ArrayList<>()).addAll(list));
+            partial.rejected.forEach(rejected::putIfAbsent);
+            errors.addAll(partial.errors);
+            stops += partial.stops;
+        }
+        // A bad row rejects its train even if another worker saw its good rows
+        stopsByTrain.keySet().removeAll(rejected.keySet());
+
+        List<Train> imported = stopsByTrain.values().parallelStream()
+                .map(trainStops -> buildTrain(trainStops, rejected))
+                .filter(train -> train != null)
+                .sorted(Comparator.comparing(Train::getTrainId, String.CASE_INSENSITIVE_ORDER))
+                .collect(Collectors.toList());
+
+        TrainCatalogue committed;
+        try {
+            committed = trainService.replaceCatalogue(current -> merge(current, imported, mode, inUse));
+        } catch (IllegalStateException e) {
+            throw new IOException(e.getMessage());
+        }
+
+        rejected.values().stream().sorted().forEach(errors::add);
+        List<String> reported = new ArrayList<>(errors.subList(0, Math.min(errors.size(), MAX_REPORTED_ERRORS)));
+        if (errors.size() > reported.size()) {
+            reported.add("... and " + (errors.size() - reported.size()) + " more");
+        }
+        return new TimetableImportResult(stops, imported.size(), rejected.size(), committed.size(), reported);
+    }
+
+    // Returns null (and records why) if the train's stops don't form a usable route
+    private Train buildTrain(List<StopTime> stops, Map<String, String> rejected) {
+        stops.sort(Comparator.comparingInt(stop -> stop.sequence));
+        StopTime first = stops.get(0);
+        String reason = null;
+        if (stops.size() < 2) {
+            reason = "fewer than two stops";
+        }
+        List<String> stations = new ArrayList<>(stops.size());
+        Map<String, String> stationTimes = new LinkedHashMap<>();
+        Set<Integer> sequences = new HashSet<>();
+        for (StopTime stop : stops) {
+            if (reason != null) {
+                break;
+            }
+            if (!sequences.add(stop.sequence)) {
+                reason = "stop_sequence " + stop.sequence + " appears twice";
+            } else if (stationTimes.putIfAbsent(stop.station, stop.time) != null) {
+                reason = "stops at " + stop.station + " twice"; // Searches assume each station once
+            } else {
+                stations.add(stop.station);
+            }
+        }
+        if (reason != null) {
+            rejected.put(first.trainId.toLowerCase(), "Train " + first.trainId + ": " + reason);
+            return null;
+        }
+
+        List<List<Integer>> seats = new ArrayList<>(seatRows);
+        for (int row = 0; row < seatRows; row++) {
+            seats.add(new ArrayList<>(Collections.nCopies(seatCols, 0)));
+        }
+        return new Train(first.trainId, first.trainNo, seats, stationTimes, stations);
+    }
+
+    // Runs under the TrainService write monitor, so 'current' can't change underneath
+    private static TrainCatalogue merge(TrainCatalogue current, List<Train> imported, Mode mode, Predicate<Train> inUse) {
+        if (mode == Mode.REPLACE) {
+            Set<String> importedIds = imported.stream().map(train -> train.getTrainId().toLowerCase()).collect(Collectors.toSet());
+            List<String> inUseDropped = current.getTrains().stream()
+                    .filter(train -> !importedIds.contains(train.getTrainId().toLowerCase()) && inUse.test(train))
+                    .map(Train::getTrainId)
+                    .collect(Collectors.toList());
+            if (!inUseDropped.isEmpty()) {
+                // Thrown before anything is swapped in, so the catalogue is left as it was
+                throw new IllegalStateException("Replacing the catalogue would drop trains that are still in use: "
+                        + String.join(", ", inUseDropped));
+            }
+        }
+        List<Train> trains = (mode == Mode.REPLACE) ? new ArrayList<>() : new ArrayList<>(current.getTrains());
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < trains.size(); i++) {
+            positions.put(trains.get(i).getTrainId().toLowerCase(), i);
+        }
+        for (Train train : imported) {
+            Train existing = current.get(train.getTrainId());
+            if (existing != null) {
+                // A timetable change keeps the train's seat map, and with it every booking
+                train.setSeats(existing.getSeats());
+            }
+            Integer position = positions.get(train.getTrainId().toLowerCase());
+            if (position != null) {
+                trains.set(position, train);
+            } else {
+                trains.add(train);
+            }
+        }
+        return TrainCatalogue.of(trains);
+    }
+
+    // Usage: TimetableImporter <stop_times.csv> [--replace [--force]] [--trains <trains.json>]
+    // Offline only: no running app may be using the same trains.json (see the class comment).
+    // --replace refuses to drop trains with booked seats unless --force is given as well.
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: TimetableImporter <stop_times.csv> [--replace [--force]] [--trains <trains.json>]");
+            return;
+        }
+        Mode mode = Mode.MERGE;
+        boolean force = false;
+        String trainsPath = null;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--replace")) {
+                mode = Mode.REPLACE;
+            } else if (args[i].equals("--force")) {
+                force = true;
+            } else if (args[i].equals("--trains") && i + 1 < args.length) {
+                trainsPath = args[++i];
+            }
+        }
+        TrainService trainService = (trainsPath != null) ? new TrainService(trainsPath) : new TrainService();
+        Predicate<Train> inUse = force ? train -> false : TimetableImporter::hasBookedSeats;
+        TimetableImportResult result;
+        try {
+            result = new TimetableImporter(trainService).importFile(new File(args[0]), mode, inUse);
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+            System.out.println("Nothing was imported. Re-run with --force to drop them and their bookings anyway.");
+            return;
+        }
+        System.out.println(result);
+        result.getErrors().forEach(error -> System.out.println("  " + error));
+    }
+
+    static boolean hasBookedSeats(Train train) {
+        return train.getSeats().stream().anyMatch(row -> row != null && row.contains(SeatChange.BOOKED));
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.service;
+
+import org.example.entities.Train;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+// Immutable view of the train catalogue with its lookup indexes: trains by (lower-case) ID and
+// by station. TrainService swaps in a new catalogue on every change, so readers never lock and
+// never see a half-applied update.
+public final class TrainCatalogue {
+
+    private static final TrainCatalogue EMPTY = new TrainCatalogue(new ArrayList<>(), new HashMap<>(), new HashMap<>());
+
+    private final List<Train> trains; // File order
+    private final Map<String, Train> byId;
+    private final Map<String, List<Train>> byStation; // Station name as stored -> trains in file order
+
+    private TrainCatalogue(List<Train> trains, Map<String, Train> byId, Map<String, List<Train>> byStation) {
+        this.trains = Collections.unmodifiableList(trains);
+        this.byId = byId;
+        this.byStation = byStation;
+    }
+
+    public static TrainCatalogue empty() {
+        return EMPTY;
+    }
+
+    public static TrainCatalogue of(List<Train> trains) {
+        return merge(trains, Collections.singletonList(indexStations(trains)));
+    }
+
+    // Station index for a slice of the catalogue. Slices can be indexed in parallel and
+    // combined with merge, which only concatenates the per-slice lists in order.
+    public static Map<String, List<Train>> indexStations(List<Train> trains) {
+        Map<String, List<Train>> index = new HashMap<>();
+        for (Train train : trains) {
+            if (train.getStations() == null) {
+                continue; // Never matches a search anyway
+            }
+            for (String station : new LinkedHashSet<>(train.getStations())) {
+                index.computeIfAbsent(station, k -> new ArrayList<>()).add(train);
+            }
+        }
+        return index;
+    }
+
+    // Builds a catalogue from trains in file order and the station indexes of consecutive slices
+    public static TrainCatalogue merge(List<Train> trains, List<Map<String, List<Train>>> sliceIndexes) {
+        Map<String, Train> byId = new HashMap<>(trains.size() * 2);
+        List<Train> unique = new ArrayList<>(trains.size());
+        for (Train train : trains) {
+            if (byId.put(train.getTrainId().toLowerCase(), train) == null) {
+                unique.add(train);
+            }
+        }
+        Map<String, List<Train>> byStation = new HashMap<>();
+        for (Map<String, List<Train>> slice : sliceIndexes) {
+            slice.forEach((station, list) -> byStation.computeIfAbsent(station, k -> new ArrayList<>()).addAll(list));
+        }
+        if (unique.size() == trains.size()) {
+            return new TrainCatalogue(unique, byId, byStation);
+        }
+        // Duplicate IDs: keep the last occurrence, like repeated saveOrUpdateTrain calls would
+        List<Train> deduplicated = new ArrayList<>(unique.size());
+        for (Train train : unique) {
+            deduplicated.add(byId.get(train.getTrainId().toLowerCase()));
+        }
+        return of(deduplicated);
+    }
+
+    public List<Train> getTrains() {
+        return trains;
+    }
+
+    public int size() {
+        return trains.size();
+    }
+
+    public Train get(String trainId) {
+        return byId.get(trainId.toLowerCase());
+    }
+
+    // Trains that stop at the station (exact match on the stored station name)
+    public List<Train> servingStation(String station) {
+        return byStation.getOrDefault(station, Collections.emptyList());
+    }
+
+    // A copy with the train added, or replacing the train with the same ID in place
+    public TrainCatalogue withTrain(Train train) {
+        List<Train> updated = new ArrayList<>(trains);
+        Train existing = get(train.getTrainId());
+        if (existing != null) {
+            updated.set(updated.indexOf(existing), train);
+        } else {
+            updated.add(train);
+        }
+        return of(updated);
+    }
+
+    // A copy without the train; returns this catalogue if the train is unknown
+    public TrainCatalogue withoutTrain(String trainId) {
+        Train existing = get(trainId);
+        if (existing == null) {
+            return this;
+        }
+        List<Train> updated = new ArrayList<>(trains);
+        updated.remove(existing);
+        return of(updated);
+    }
+}
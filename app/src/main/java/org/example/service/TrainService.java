@@ -1,40 +1,119 @@
 package org.example.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature; // Import for pretty printing
 import org.example.entities.Train;
+import org.example.util.ParallelJsonArrayLoader;
+import org.example.util.StorageFormat;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
-import java.util.OptionalInt;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public class TrainService {
 
-    private List<Train> trainList;
+    // The catalogue is replaced as a whole on every change (see TrainCatalogue)
+    private volatile TrainCatalogue catalogue = TrainCatalogue.empty();
+    private final CompletableFuture<Void> loaded;
+    private final List<Consumer<Train>> trainUpdateListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<String>> trainRemovalListeners = new CopyOnWriteArrayList<>();
     private ObjectMapper objectMapper = new ObjectMapper();
     // Corrected path, assuming it's relative to the 'app' module root
     private static final String TRAIN_DB_PATH = "src/main/resources/localDB/trains.json";
+    private final String trainDbPath;
 
     public TrainService() throws IOException {
+        this(TRAIN_DB_PATH);
+    }
+
+    // Backed by a different file, e.g. one cluster node's share of the catalogue
+    public TrainService(String trainDbPath) throws IOException {
+        this(trainDbPath, false);
+        try {
+            loaded.join();
+        } catch (CompletionException e) {
+            throw (e.getCause() instanceof IOException) ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    private TrainService(String trainDbPath, boolean async) {
+        this.trainDbPath = trainDbPath;
         // Enable pretty printing for JSON output (useful for debugging)
         objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        StorageFormat.forTarget("trains").configure(objectMapper); // e.g. -Dbooking.format.trains=COMPACT_JSON
+        if (async) {
+            loaded = CompletableFuture.runAsync(() -> {
+                try {
+                    loadCatalogue();
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, ForkJoinPool.commonPool());
+        } else {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            try {
+                loadCatalogue();
+                done.complete(null);
+            } catch (IOException e) {
+                done.completeExceptionally(e);
+            }
+            loaded = done;
+        }
+    }
+
+    // Starts loading the catalogue in the background and returns at once. Every method waits
+    // for the load to finish; use loaded() to find out when that is without blocking.
+    public static TrainService loadAsync() {
+        return loadAsync(TRAIN_DB_PATH);
+    }
 
-        File trainsFile = new File(TRAIN_DB_PATH);
+    public static TrainService loadAsync(String trainDbPath) {
+        return new TrainService(trainDbPath, true);
+    }
+
+    public CompletableFuture<Void> loaded() {
+        return loaded;
+    }
+
+    private void loadCatalogue() throws IOException {
+        File trainsFile = new File(trainDbPath);
         // Check if the file exists; if not, create an empty list and save it
         if (!trainsFile.exists()) {
             System.out.println("TrainService: trains.json not found. Creating an empty file.");
-            trainList = new ArrayList<>(); // Initialize with an empty list
+            catalogue = TrainCatalogue.empty(); // Initialize with an empty list
             saveTrainListToFile(); // Create the file
         } else {
-            // If the file exists, read its content
-            trainList = objectMapper.readValue(trainsFile, new TypeReference<List<Train>>() {});
+            // If the file exists, read its content in chunks on the fork-join pool. Each chunk's
+            // station index is built as soon as it is parsed, overlapping with the rest of the file.
+            ConcurrentSkipListMap<Integer, Map<String, List<Train>>> sliceIndexes = new ConcurrentSkipListMap<>();
+            List<Train> trains = new ParallelJsonArrayLoader<>(objectMapper, Train.class)
+                    .load(trainsFile, (chunk, index) -> sliceIndexes.put(index, TrainCatalogue.indexStations(chunk)));
+            catalogue = TrainCatalogue.merge(trains, new ArrayList<>(sliceIndexes.values()));
+        }
+    }
+
+    // Current catalogue, once the initial load has finished. Writers call this before taking
+    // the monitor, since the loader itself may need the monitor to create a missing file.
+    private TrainCatalogue catalogue() {
+        if (!loaded.isDone()) {
+            loaded.join();
         }
+        return catalogue;
     }
 
     public List<Train> searchTrains(String source, String destination) {
@@ -42,41 +121,90 @@ public class TrainService {
         String lowerCaseSource = source.toLowerCase();
         String lowerCaseDestination = destination.toLowerCase();
 
-        return trainList.stream()
+        // Only trains stopping at the source can match, so start from the station index
+        return catalogue().servingStation(lowerCaseSource).stream()
                 .filter(train -> validTrain(train, lowerCaseSource, lowerCaseDestination))
                 .collect(Collectors.toList());
     }
 
+    // Copy of the whole catalogue
+    public List<Train> getAllTrains() {
+        return new ArrayList<>(catalogue().getTrains());
+    }
+
+    // Listeners are told about every train added or replaced through saveOrUpdateTrain
+    public void addTrainUpdateListener(Consumer<Train> listener) {
+        trainUpdateListeners.add(listener);
+    }
+
+    // Listeners get the ID of every train that leaves the catalogue, through removeTrain or
+    // replaceCatalogue
+    public void addTrainRemovalListener(Consumer<String> listener) {
+        trainRemovalListeners.add(listener);
+    }
+
+    // Looks up a train by its ID (case-insensitive), or returns null if it is unknown
+    public Train getTrainById(String trainId) {
+        return catalogue().get(trainId);
+    }
+
     // Renamed from addTrain to saveOrUpdateTrain to reflect its actual "add or update" behavior
     public void saveOrUpdateTrain(Train newTrain) {
-        // Find the index of the train if it already exists
-        OptionalInt index = IntStream.range(0, trainList.size())
-                .filter(i -> trainList.get(i).getTrainId().equalsIgnoreCase(newTrain.getTrainId()))
-                .findFirst();
-
-        if (index.isPresent()) {
-            // Update existing train
-            trainList.set(index.getAsInt(), newTrain);
-            System.out.println("TrainService: Updated existing train: " + newTrain.getTrainId());
-        } else {
-            // Add new train
-            trainList.add(newTrain);
-            System.out.println("TrainService: Added new train: " + newTrain.getTrainId());
+        catalogue();
+        synchronized (this) { // Writers take turns; readers keep using the old catalogue meanwhile
+            TrainCatalogue current = catalogue();
+            if (current.get(newTrain.getTrainId()) != null) {
+                // Update existing train
+                System.out.println("TrainService: Updated existing train: " + newTrain.getTrainId());
+            } else {
+                // Add new train
+                System.out.println("TrainService: Added new train: " + newTrain.getTrainId());
+            }
+            catalogue = current.withTrain(newTrain);
+            saveTrainListToFile(); // Save changes to file
         }
-        saveTrainListToFile(); // Save changes to file
+        trainUpdateListeners.forEach(listener -> listener.accept(newTrain));
+    }
+
+    // Removes a train from the catalogue, e.g. when it moves to another cluster node.
+    // Returns false if no train with that ID exists.
+    public boolean removeTrain(String trainId) {
+        catalogue();
+        Train removed;
+        synchronized (this) {
+            TrainCatalogue current = catalogue();
+            TrainCatalogue updated = current.withoutTrain(trainId);
+            if (updated == current) {
+                return false;
+            }
+            removed = current.get(trainId);
+            catalogue = updated;
+            saveTrainListToFile();
+        }
+        trainRemovalListeners.forEach(listener -> listener.accept(removed.getTrainId()));
+        return true;
     }
 
     // Specific method to update only the seats of a train and persist it
     public void updateTrainSeats(Train updatedTrain) throws IOException {
-        // Find the train in the list by ID
-        OptionalInt index = IntStream.range(0, trainList.size())
-                .filter(i -> trainList.get(i).getTrainId().equalsIgnoreCase(updatedTrain.getTrainId()))
-                .findFirst();
-
-        if (index.isPresent()) {
-            // Replace the old train object with the one that has updated seats
-            trainList.set(index.getAsInt(), updatedTrain);
-            saveTrainListToFile();
+        catalogue();
+        boolean known;
+        synchronized (this) {
+            TrainCatalogue current = catalogue();
+            Train existing = current.get(updatedTrain.getTrainId());
+            known = existing != null;
+            // A train whose seat map the catalogue already holds (e.g. one a timetable import
+            // replaced while it was being booked) must not bring back its old timetable
+            if (known && existing != updatedTrain && existing.getSeats() != updatedTrain.getSeats()) {
+                // Replace the old train object with the one that has updated seats
+                catalogue = current.withTrain(updatedTrain);
+            }
+            if (known) {
+                saveTrainListToFile();
+            }
+        }
+
+        if (known) {
             System.out.println("TrainService: Seats updated for train: " + updatedTrain.getTrainId());
         } else {
             System.err.println("TrainService: Warning: Attempted to update seats for a train not found in the list: " + updatedTrain.getTrainId());
@@ -85,9 +213,52 @@ public class TrainService {
         }
     }
 
-    private void saveTrainListToFile() {
+    // Replaces the whole catalogue in one step, e.g. with the result of a bulk import. 'rebuild'
+    // gets the current catalogue and returns the new one; no other write can interleave, readers
+    // switch over atomically and the file is written once. Listeners hear about every train that
+    // is new or replaced, and removal listeners about every train that is gone.
+    public TrainCatalogue replaceCatalogue(Function<TrainCatalogue, TrainCatalogue> rebuild) {
+        catalogue();
+        TrainCatalogue previous;
+        TrainCatalogue updated;
+        synchronized (this) {
+            previous = catalogue;
+            updated = rebuild.apply(previous);
+            catalogue = updated;
+            saveTrainListToFile();
+        }
+        for (Train train : updated.getTrains()) {
+            if (previous.get(train.getTrainId()) != train) {
+                trainUpdateListeners.forEach(listener -> listener.accept(train));
+            }
+        }
+        for (Train train : previous.getTrains()) {
+            if (updated.get(train.getTrainId()) == null) {
+                trainRemovalListeners.forEach(listener -> listener.accept(train.getTrainId()));
+            }
+        }
+        System.out.println("TrainService: Catalogue replaced (" + previous.size() + " -> " + updated.size() + " trains).");
+        return updated;
+    }
+
+    // Writes the whole catalogue once, e.g. after a batch of seat changes made in place
+    public void saveAllTrains() {
+        catalogue();
+        saveTrainListToFile();
+    }
+
+    private synchronized void saveTrainListToFile() {
         try {
-            objectMapper.writeValue(new File(TRAIN_DB_PATH), trainList);
+            // Write a temporary file and move it into place, so a crash mid-write can't leave a
+            // truncated catalogue behind
+            Path target = Paths.get(trainDbPath);
+            Path temp = Paths.get(trainDbPath + ".tmp");
+            objectMapper.writeValue(temp.toFile(), catalogue.getTrains());
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
         } catch (IOException e) {
             // It's better to rethrow RuntimeException or handle more gracefully
             // in a real application, but printStackTrace is okay for now.
@@ -96,7 +267,8 @@ public class TrainService {
         }
     }
 
-    private boolean validTrain(Train train, String source, String destination) {
+    // Public and static so read replicas can apply the same route matching to their own copies
+    public static boolean validTrain(Train train, String source, String destination) {
         List<String> stationOrder = train.getStations();
 
         // Ensure stationOrder is not null or empty
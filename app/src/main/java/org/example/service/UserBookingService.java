@@ -1,34 +1,153 @@
 package org.example.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature; // For pretty printing JSON
 
+import org.example.analytics.BookingAnalytics;
+import org.example.entities.ArchivedTicket;
+import org.example.entities.BookingMutation;
+import org.example.entities.SeatChange;
+import org.example.entities.SeatHold;
 import org.example.entities.Ticket;
 import org.example.entities.Train;
 import org.example.entities.User;
+import org.example.entities.WaitlistEntry;
+import org.example.replication.ReplicationLog;
+import org.example.replication.ReplicationPrimary;
+import org.example.util.ParallelJsonArrayLoader;
+import org.example.util.StorageFormat;
 import org.example.util.UserServiceUtil;
 
 import java.io.File;
 import java.io.IOException;
-import java.time.LocalDateTime; // For current date/time when booking
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class UserBookingService {
 
     private ObjectMapper objectMapper = new ObjectMapper();
     private List<User> userList;
+    // Lower-case name -> users. users.json may hold several accounts with one name (from before
+    // sign-up checked for duplicates); each of them must still be able to log in.
+    private final Map<String, List<User>> usersByName = new ConcurrentHashMap<>();
+    private final CompletableFuture<Void> usersLoaded;
+    private volatile ServiceReadiness readiness = ServiceReadiness.STARTING;
+    private TicketArchive ticketArchive; // Travelled and cancelled tickets; opened with the users
+    private static final long ARCHIVE_SWEEP_HOURS = 6;
     private User currentUser; // This holds the currently logged-in/signed-up user
 
     private final String USER_FILE_PATH = "src/main/resources/localDB/users.json";
     private TrainService trainService; // Inject TrainService or instantiate it
-
+    private SeatHoldService seatHoldService; // Short-lived checkout holds, kept in memory only
+    private WaitlistService waitlistService; // Waitlists and the allocator for cancelled seats
+    private SeatChangeFeed seatChangeFeed; // Live seat-map deltas for watchers
+    private volatile Consumer<BookingMutation> mutationListener = mutation -> {}; // Replication hook
+    private ReplicationPrimary replicationPrimary;
+    private final BookingAdmissionController admissionController = new BookingAdmissionController();
+    private final Map<String, Object> trainLocks = new java.util.concurrent.ConcurrentHashMap<>();
+    private final BookingAnalytics analytics = new BookingAnalytics(this::analyticsSnapshot, this::currentSeatStates);
+
+    // Loads everything before returning; use start() to begin serving while data is still loading
     public UserBookingService() throws IOException {
+        this(TrainService.loadAsync());
+        awaitReady();
+    }
+
+    private UserBookingService(TrainService trainService) {
         // Configure ObjectMapper for pretty printing JSON (optional, but good for debugging)
         objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-        loadUserListFromFile();
-        this.trainService = new TrainService(); // Initialize TrainService here
+        StorageFormat.forTarget("users").configure(objectMapper);
+        this.trainService = trainService; // Already loading trains.json in the background
+        this.usersLoaded = CompletableFuture.runAsync(() -> {
+            try {
+                loadUserListFromFile();
+                ticketArchive = new TicketArchive();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }).runAfterBoth(trainService.loaded(), this::releaseOrphanedSeats);
+        trainService.loaded().whenComplete((ignored, error) -> updateReadiness());
+        usersLoaded.whenComplete((ignored, error) -> updateReadiness());
+        usersLoaded.thenRun(this::scheduleArchiveSweeps);
+        this.seatChangeFeed = new SeatChangeFeed(this::currentSeatStates);
+        this.seatHoldService = new SeatHoldService(SeatHoldService.DEFAULT_HOLD_TTL, this::onHoldExpired);
+        this.waitlistService = new WaitlistService(this::promoteFromWaitlist);
+    }
+
+    // Starts loading trains and users in parallel and returns at once. Calls wait for the data
+    // they need: searches and seat maps for the trains only, account operations for the users.
+    public static UserBookingService start() {
+        return new UserBookingService(TrainService.loadAsync());
+    }
+
+    public ServiceReadiness getReadiness() {
+        return readiness;
+    }
+
+    // Blocks until the train catalogue is loaded
+    public void awaitTrainsReady() throws IOException {
+        await(trainService.loaded());
+    }
+
+    // Blocks until trains and users are both loaded
+    public void awaitReady() throws IOException {
+        await(trainService.loaded());
+        await(usersLoaded);
+    }
+
+    private static void await(CompletableFuture<Void> load) throws IOException {
+        try {
+            load.join();
+        } catch (CompletionException e) {
+            throw (e.getCause() instanceof IOException) ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    // Runs on the loading threads. Not on the service monitor: a caller holding it may be waiting for the load.
+    private void updateReadiness() {
+        synchronized (usersByName) {
+            CompletableFuture<Void> trainsLoaded = trainService.loaded();
+            if (trainsLoaded.isCompletedExceptionally() || usersLoaded.isCompletedExceptionally()) {
+                readiness = ServiceReadiness.FAILED;
+            } else if (trainsLoaded.isDone() && usersLoaded.isDone()) {
+                readiness = ServiceReadiness.READY;
+            } else if (trainsLoaded.isDone()) {
+                readiness = ServiceReadiness.TRAINS_READY;
+            }
+        }
+    }
+
+    private void scheduleArchiveSweeps() {
+        ScheduledExecutorService archiver = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ticket-archiver");
+            t.setDaemon(true);
+            return t;
+        });
+        archiver.scheduleAtFixedRate(() -> {
+            try {
+                archiveCompletedJourneys();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("UserBookingService: Archiving travelled tickets failed: " + e.getMessage());
+            }
+        }, 0, ARCHIVE_SWEEP_HOURS, TimeUnit.HOURS);
+    }
+
+    // The user list, once it has loaded
+    private List<User> users() {
+        if (!usersLoaded.isDone()) {
+            usersLoaded.join();
+        }
+        return userList;
     }
 
     // Method to set the active user after login/signup
@@ -41,18 +160,27 @@ public class UserBookingService {
         return currentUser;
     }
 
+    // Runs on the fork-join pool; must not take the service monitor, whose holders may be waiting on it
     private void loadUserListFromFile() throws IOException {
         File usersFile = new File(USER_FILE_PATH);
         if (!usersFile.exists()) {
             System.out.println("UserBookingService: users.json not found. Creating an empty file.");
             userList = new ArrayList<>(); // Initialize with an empty list
-            saveUserListToFile(); // Create the file with an empty list
+            objectMapper.writeValue(usersFile, userList); // Create the file with an empty list
         } else {
-            userList = objectMapper.readValue(usersFile, new TypeReference<List<User>>() {});
+            // Chunks are parsed in parallel; each one adds its users to the name index as it lands
+            userList = new ParallelJsonArrayLoader<>(objectMapper, User.class)
+                    .load(usersFile, (chunk, index) -> chunk.forEach(this::indexUser));
         }
     }
 
-    private void saveUserListToFile() throws IOException {
+    private void indexUser(User user) {
+        if (user.getName() != null) {
+            usersByName.computeIfAbsent(user.getName().toLowerCase(), k -> new CopyOnWriteArrayList<>()).add(user);
+        }
+    }
+
+    private synchronized void saveUserListToFile() throws IOException {
         File usersFile = new File(USER_FILE_PATH);
         objectMapper.writeValue(usersFile, userList);
         System.out.println("UserBookingService: User list saved to file.");
@@ -61,18 +189,22 @@ public class UserBookingService {
     // Modified signUp to return the User object and handle existing users
     public User signUp(String username, String password) {
         // Check if user already exists (case-insensitive)
-        Optional<User> existingUser = userList.stream()
-                .filter(u -> u.getName().equalsIgnoreCase(username))
-                .findFirst();
-
-        if (existingUser.isPresent()) {
+        users();
+        if (usersByName.containsKey(username.toLowerCase())) {
             System.out.println("Error: Username '" + username + "' already exists. Please choose a different one.");
             return null; // User already exists
         }
 
         String hashedPassword = UserServiceUtil.hashPassword(password);
         User newUser = new User(username, password, hashedPassword, new ArrayList<>(), UUID.randomUUID().toString());
-        userList.add(newUser);
+        if (usersByName.putIfAbsent(username.toLowerCase(), new CopyOnWriteArrayList<>(List.of(newUser))) != null) {
+            System.out.println("Error: Username '" + username + "' already exists. Please choose a different one.");
+            return null; // Someone else signed up with the name meanwhile
+        }
+        synchronized (this) {
+            userList.add(newUser);
+        }
+        mutationListener.accept(BookingMutation.userUpsert(withoutPassword(newUser)));
         try {
             saveUserListToFile();
             return newUser; // Return the newly signed-up user
@@ -85,15 +217,18 @@ public class UserBookingService {
 
     // Modified login to return the User object
     public User login(String username, String password) {
-        Optional<User> foundUser = userList.stream()
-                .filter(u -> u.getName().equalsIgnoreCase(username) && UserServiceUtil.checkPassword(password, u.getHashedPassword()))
-                .findFirst();
-
-        if (foundUser.isPresent()) {
-            return foundUser.get(); // Return the logged-in user
-        } else {
-            return null; // Login failed
+        users();
+        List<User> matches = usersByName.getOrDefault(username.toLowerCase(), Collections.emptyList()).stream()
+                .filter(u -> UserServiceUtil.checkPassword(password, u.getHashedPassword()))
+                .collect(Collectors.toList());
+        if (matches.size() > 1) {
+            // Same name and password: the index order depends on parallel loading, so pick
+            // the account listed first in users.json, as a scan of the list would
+            synchronized (this) {
+                return userList.stream().filter(matches::contains).findFirst().orElse(null);
+            }
         }
+        return matches.isEmpty() ? null : matches.get(0); // Null if the login failed
     }
 
     public void fetchBookings() {
@@ -103,7 +238,7 @@ public class UserBookingService {
         }
 
         // Find the most up-to-date user object from the list (in case changes occurred from other sessions/apps)
-        Optional<User> updatedUserOpt = userList.stream()
+        Optional<User> updatedUserOpt = users().stream()
                 .filter(u -> u.getUserId().equals(currentUser.getUserId()))
                 .findFirst();
 
@@ -121,6 +256,73 @@ public class UserBookingService {
         }
     }
 
+    // The current user's travelled and cancelled tickets, most recent journey first.
+    // Read from the archive on demand; they are not kept in memory.
+    public List<ArchivedTicket> fetchBookingHistory() {
+        if (currentUser == null) {
+            System.out.println("No user logged in to fetch booking history.");
+            return new ArrayList<>();
+        }
+        users();
+        try {
+            List<ArchivedTicket> history = ticketArchive.historyFor(currentUser.getUserId());
+            history.sort(Comparator.comparing((ArchivedTicket record) -> TicketArchive.travelTime(record.getTicket()),
+                    Comparator.nullsLast(Comparator.reverseOrder())));
+            return history;
+        } catch (IOException e) {
+            System.err.println("Error reading booking history: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    // Moves every ticket whose journey date has passed from users.json into the archive, saves
+    // users.json once and gives the seats back: seat maps are not kept per date, so a seat is
+    // free for later journeys once its passenger has travelled. Tickets from before journey dates
+    // were recorded hold their booking time instead and stay put. Runs every few hours; returns
+    // how many tickets moved.
+    public int archiveCompletedJourneys() throws IOException {
+        users();
+        LocalDate today = LocalDate.now();
+        long now = System.currentTimeMillis();
+        List<Ticket> moved = new ArrayList<>();
+        synchronized (this) {
+            Map<User, List<Ticket>> travelled = new LinkedHashMap<>();
+            List<ArchivedTicket> records = new ArrayList<>();
+            for (User user : userList) {
+                for (Ticket ticket : user.getTicketsBooked()) {
+                    if (TicketArchive.travelledBefore(ticket, today)) {
+                        travelled.computeIfAbsent(user, k -> new ArrayList<>()).add(ticket);
+                        records.add(new ArchivedTicket(ownedBy(ticket, user), ArchivedTicket.Status.TRAVELLED, now));
+                    }
+                }
+            }
+            if (records.isEmpty()) {
+                return 0;
+            }
+            ticketArchive.append(records); // Only drop them from the hot store once they're safe
+            travelled.forEach((user, tickets) -> {
+                user.getTicketsBooked().removeAll(tickets);
+                tickets.forEach(ticket -> mutationListener.accept(BookingMutation.ticketRemoved(user.getUserId(), ticket.getTicketId())));
+                moved.addAll(tickets);
+            });
+            saveUserListToFile();
+        }
+        // Outside the monitor: train locks are always taken before it
+        for (Ticket ticket : moved) {
+            freeSeatOf(ticket);
+        }
+        System.out.println("UserBookingService: Archived " + moved.size() + " travelled tickets.");
+        return moved.size();
+    }
+
+    // Archive records are found by the ticket's user ID; old tickets may not carry the right one
+    private static Ticket ownedBy(Ticket ticket, User user) {
+        if (!user.getUserId().equals(ticket.getUserId())) {
+            ticket.setUserId(user.getUserId());
+        }
+        return ticket;
+    }
+
     public List<Train> getTrains(String source, String destination) {
         // TrainService is already initialized in constructor
         return trainService.searchTrains(source, destination);
@@ -133,13 +335,145 @@ public class UserBookingService {
         return new ArrayList<>(); // Return empty list if train is null
     }
 
-    // Helper method to get available seats count from TrainService
+    // Helper method to get available seats count from TrainService.
+    // Seats held by other customers are not counted as available; the current user's own holds are.
     public int getAvailableSeatsCount(Train train) {
-        return trainService.getAvailableSeatsCount(train);
+        if (train == null) {
+            return 0;
+        }
+        String userId = (currentUser != null) ? currentUser.getUserId() : null;
+        int available = trainService.getAvailableSeatsCount(train) - seatHoldService.heldSeatCount(train.getTrainId(), userId);
+        return Math.max(available, 0);
     }
 
-    public Boolean bookTrainSeat(Train train, int row, int col) {
+    // Reserves a seat for the current user for a limited time, e.g. while payment runs.
+    // The hold must be confirmed with confirmHold before it expires, or the seat is released.
+    public SeatHold holdTrainSeat(Train train, int row, int col) {
         if (currentUser == null) {
+            System.out.println("Error: No user logged in to hold a seat.");
+            return null;
+        }
+        if (train == null) {
+            System.out.println("Error: No train selected for holding a seat.");
+            return null;
+        }
+
+        synchronized (lockFor(train)) {
+            List<List<Integer>> seats = train.getSeats();
+            if (row < 0 || row >= seats.size() || col < 0 || col >= seats.get(row).size()) {
+                System.out.println("Invalid row or column index.");
+                return null;
+            }
+            if (seats.get(row).get(col) != 0) {
+                System.out.println("Seat (" + row + "," + col + ") is already booked.");
+                return null;
+            }
+            SeatHold hold = seatHoldService.placeHold(currentUser.getUserId(), train.getTrainId(), row, col);
+            if (hold == null) {
+                System.out.println("Seat (" + row + "," + col + ") is currently held by another customer.");
+            } else {
+                seatChangeFeed.publish(train.getTrainId(), row, col, SeatChange.HELD);
+            }
+            return hold;
+        }
+    }
+
+    // Turns a live hold into a real booking for the current user, for today's journey
+    public Boolean confirmHold(String holdId) {
+        if (currentUser == null) {
+            System.out.println("Error: No user logged in to confirm a hold.");
+            return Boolean.FALSE;
+        }
+        SeatHold hold = seatHoldService.getHold(holdId);
+        if (hold == null) {
+            System.out.println("Hold " + holdId + " has expired or does not exist.");
+            return Boolean.FALSE;
+        }
+        Train train = trainService.getTrainById(hold.getTrainId());
+        if (train == null) {
+            System.out.println("Train " + hold.getTrainId() + " for hold " + holdId + " no longer exists.");
+            return Boolean.FALSE;
+        }
+
+        synchronized (lockFor(train)) {
+            // Releasing under the train lock means nobody else can grab the seat before we book it
+            if (seatHoldService.releaseHold(holdId, currentUser.getUserId()) == null) {
+                System.out.println("Hold " + holdId + " has expired or belongs to another user.");
+                return Boolean.FALSE;
+            }
+            return bookTrainSeat(train, hold.getRow(), hold.getCol());
+        }
+    }
+
+    // Gives a held seat back without booking it
+    public Boolean releaseHold(String holdId) {
+        if (currentUser == null) {
+            System.out.println("Error: No user logged in to release a hold.");
+            return Boolean.FALSE;
+        }
+        SeatHold hold = seatHoldService.releaseHold(holdId, currentUser.getUserId());
+        if (hold == null) {
+            return Boolean.FALSE;
+        }
+        publishIfAvailable(hold);
+        return Boolean.TRUE;
+    }
+
+    private void onHoldExpired(SeatHold hold) {
+        publishIfAvailable(hold);
+    }
+
+    // Tells watchers a held seat is free again, unless it was booked in the meantime
+    private void publishIfAvailable(SeatHold hold) {
+        Train train = trainService.getTrainById(hold.getTrainId());
+        if (train == null) {
+            return;
+        }
+        synchronized (lockFor(train)) {
+            if (train.getSeats().get(hold.getRow()).get(hold.getCol()) == 0) {
+                seatChangeFeed.publish(train.getTrainId(), hold.getRow(), hold.getCol(), SeatChange.AVAILABLE);
+            }
+        }
+    }
+
+    // Subscribes to live seat changes for the train, starting after 'fromSequence'.
+    // Pass 0 to start with a full snapshot of the seat map (held seats appear as SeatChange.HELD).
+    public void watchSeats(Train train, long fromSequence, Flow.Subscriber<? super SeatChange> subscriber) {
+        seatChangeFeed.subscribe(train.getTrainId(), fromSequence, subscriber);
+    }
+
+    // Seat matrix with current holds overlaid, used for feed snapshots
+    private List<List<Integer>> currentSeatStates(String trainId) {
+        Train train = trainService.getTrainById(trainId);
+        if (train == null) {
+            return null;
+        }
+        synchronized (lockFor(train)) {
+            List<List<Integer>> states = new ArrayList<>();
+            for (List<Integer> row : train.getSeats()) {
+                states.add(new ArrayList<>(row));
+            }
+            for (SeatHold hold : seatHoldService.holdsOnTrain(train.getTrainId())) {
+                states.get(hold.getRow()).set(hold.getCol(), SeatChange.HELD);
+            }
+            return states;
+        }
+    }
+
+    // Books the seat for today's journey
+    public Boolean bookTrainSeat(Train train, int row, int col) {
+        return bookTrainSeat(currentUser, train, row, col, LocalDate.now());
+    }
+
+    public Boolean bookTrainSeat(Train train, int row, int col, LocalDate travelDate) {
+        return bookTrainSeat(currentUser, train, row, col, travelDate);
+    }
+
+    // Books the seat on behalf of the given user rather than the session's current user,
+    // so concurrent callers (admission queue, background allocators) don't share state.
+    // The ticket is archived as travelled once 'travelDate' has passed.
+    public Boolean bookTrainSeat(User user, Train train, int row, int col, LocalDate travelDate) {
+        if (user == null) {
             System.out.println("Error: No user logged in to book a seat.");
             return Boolean.FALSE;
         }
@@ -147,53 +481,385 @@ public class UserBookingService {
             System.out.println("Error: No train selected for booking.");
             return Boolean.FALSE;
         }
+        if (travelDate == null || travelDate.isBefore(LocalDate.now())) {
+            System.out.println("Error: The travel date must be today or later.");
+            return Boolean.FALSE;
+        }
 
-        try {
-            List<List<Integer>> seats = train.getSeats();
+        synchronized (lockFor(train)) {
+            try {
+                List<List<Integer>> seats = train.getSeats();
 
-            if (row >= 0 && row < seats.size() && col >= 0 && col < seats.get(row).size()) {
-                if (seats.get(row).get(col) == 0) { // Check if seat is available (0 means available)
-                    seats.get(row).set(col, 1); // Mark as booked (1 means booked)
-                    train.setSeats(seats); // Update the train object's seats
-
-                    // Update train data in file using TrainService
-                    trainService.updateTrainSeats(train);
-
-                    // Create a new Ticket and add to currentUser's bookings
-                    // Ensure dateOfTravel is a String as per Ticket.java constructor
-                    Ticket newTicket = new Ticket(
-                        UUID.randomUUID().toString(), // ticketId
-                        currentUser.getUserId(),     // userId
-                        train.getStationTimes().keySet().stream().findFirst().orElse("N/A"), // source (first station in map)
-                        train.getStationTimes().keySet().stream().reduce((first, second) -> second).orElse("N/A"), // destination (last station in map)
-                        LocalDateTime.now().toString(), // dateOfTravel as String
-                        train // Pass the actual Train object
-                    );
-
-                    // Add ticket to current user's booked tickets
-                    currentUser.getTicketsBooked().add(newTicket);
-
-                    // Update the user in the main userList to reflect changes in currentUser's bookings
-                    userList = userList.stream()
-                        .map(u -> u.getUserId().equals(currentUser.getUserId()) ? currentUser : u)
-                        .collect(Collectors.toList());
-                    
-                    saveUserListToFile(); // Save updated user data
-
-                    return true; // Booking successful
+                if (row >= 0 && row < seats.size() && col >= 0 && col < seats.get(row).size()) {
+                    if (seatHoldService.isHeldByOther(train.getTrainId(), row, col, user.getUserId())) {
+                        System.out.println("Seat (" + row + "," + col + ") is currently held by another customer.");
+                        return false; // Seat is reserved during someone else's checkout
+                    }
+                    if (seats.get(row).get(col) == 0) { // Check if seat is available (0 means available)
+                        seats.get(row).set(col, 1); // Mark as booked (1 means booked)
+                        train.setSeats(seats); // Update the train object's seats
+
+                        // Update train data in file using TrainService
+                        trainService.updateTrainSeats(train);
+                        // A hold the user had on the seat is used up, or the seat would count twice
+                        seatHoldService.releaseSeat(train.getTrainId(), row, col, user.getUserId());
+                        seatChangeFeed.publish(train.getTrainId(), row, col, SeatChange.BOOKED);
+
+                        // Create a new Ticket for the whole journey and add to the user's bookings
+                        Ticket newTicket = createTicket(user, train, row, col,
+                            train.getStationTimes().keySet().stream().findFirst().orElse("N/A"), // source (first station in map)
+                            train.getStationTimes().keySet().stream().reduce((first, second) -> second).orElse("N/A"), // destination (last station in map)
+                            travelDate);
+
+                        synchronized (this) { // userList is shared by every train
+                            addTicketToUser(user, newTicket);
+                            saveUserListToFile(); // Save updated user data
+                        }
+
+                        return true; // Booking successful
+                    } else {
+                        System.out.println("Seat (" + row + "," + col + ") is already booked. You can join the waitlist for this train.");
+                        return false; // Seat is already booked
+                    }
                 } else {
-                    System.out.println("Seat (" + row + "," + col + ") is already booked.");
-                    return false; // Seat is already booked
+                    System.out.println("Invalid row or column index.");
+                    return false; // Invalid row or seat index
                 }
-            } else {
-                System.out.println("Invalid row or column index.");
-                return false; // Invalid row or seat index
+            } catch (IOException ex) {
+                System.err.println("Error during seat booking: " + ex.getMessage());
+                ex.printStackTrace();
+                return Boolean.FALSE;
             }
-        } catch (IOException ex) {
-            System.err.println("Error during seat booking: " + ex.getMessage());
-            ex.printStackTrace();
+        }
+    }
+
+    private Ticket createTicket(User user, Train train, int row, int col, String source, String destination,
+                                LocalDate travelDate) {
+        // Ensure dateOfTravel is a String as per Ticket.java constructor
+        Ticket ticket = new Ticket(
+            UUID.randomUUID().toString(), // ticketId
+            user.getUserId(),            // userId
+            source,
+            destination,
+            travelDate.toString(), // dateOfTravel as String, e.g. 2024-05-17
+            train // Pass the actual Train object
+        );
+        // Remember the seat so a cancellation can free it again
+        ticket.setSeatRow(row);
+        ticket.setSeatCol(col);
+        return ticket;
+    }
+
+    // Caller must hold the service monitor
+    private void addTicketToUser(User user, Ticket ticket) {
+        // Add ticket to the user's booked tickets
+        user.getTicketsBooked().add(ticket);
+        analytics.recordBooking(ticket);
+
+        // Update the user in the main userList to reflect changes in the user's bookings
+        userList = userList.stream()
+            .map(u -> u.getUserId().equals(user.getUserId()) ? user : u)
+            .collect(Collectors.toList());
+        mutationListener.accept(BookingMutation.ticketAdded(user.getUserId(), ticket));
+    }
+
+    // Puts the current user on the train's waitlist for the given leg. When a seat on the
+    // train is cancelled, the best-placed waiting customer is booked onto it automatically.
+    // Returns null if the train doesn't serve the leg or the user is already waiting on it.
+    public WaitlistEntry joinWaitlist(Train train, String source, String destination, int priority) {
+        if (currentUser == null) {
+            System.out.println("Error: No user logged in to join a waitlist.");
+            return null;
+        }
+        if (train == null) {
+            System.out.println("Error: No train selected for the waitlist.");
+            return null;
+        }
+        if (source == null || destination == null
+                || !TrainService.validTrain(train, source.toLowerCase(), destination.toLowerCase())) {
+            System.out.println("Train " + train.getTrainId() + " does not run from " + source + " to " + destination + ".");
+            return null;
+        }
+        WaitlistEntry entry = waitlistService.join(currentUser.getUserId(), train.getTrainId(), source, destination, priority);
+        if (entry == null) {
+            System.out.println("You are already on the waitlist for train " + train.getTrainId() + ".");
+            return null;
+        }
+        System.out.println("Added to the waitlist for train " + train.getTrainId() + " at position "
+                + waitlistService.positionOf(entry.getEntryId()) + ".");
+        return entry;
+    }
+
+    public Boolean leaveWaitlist(String entryId) {
+        if (currentUser == null) {
+            System.out.println("Error: No user logged in to leave a waitlist.");
             return Boolean.FALSE;
         }
+        return waitlistService.withdraw(entryId, currentUser.getUserId());
+    }
+
+    // Returns -1 once the entry has been promoted to a booking or withdrawn
+    public int getWaitlistPosition(String entryId) {
+        return waitlistService.positionOf(entryId);
+    }
+
+    // Called on the waitlist allocator thread with a batch of freed seats. Each seat goes to
+    // the next waitlisted customer on its train; seats nobody waits for become available again.
+    // Trains and users are each written once for the whole batch.
+    private void promoteFromWaitlist(List<WaitlistService.SeatRelease> releases) {
+        int promoted = 0;
+        for (WaitlistService.SeatRelease release : releases) {
+            Train train = trainService.getTrainById(release.getTrainId());
+            if (train == null) {
+                continue; // Train was removed after the cancellation
+            }
+            synchronized (lockFor(train)) {
+                List<Integer> seatRow = train.getSeats().get(release.getRow());
+                WaitlistEntry entry;
+                User user = null;
+                while ((entry = waitlistService.pollNext(train.getTrainId())) != null) {
+                    user = findUserById(entry.getUserId());
+                    if (user != null) {
+                        break;
+                    }
+                }
+
+                if (user != null) {
+                    // The seat was never marked free, so nobody else can have taken it
+                    seatRow.set(release.getCol(), 1);
+                    // Waitlists are per train, not per date: the seat is for today's journey
+                    Ticket ticket = createTicket(user, train, release.getRow(), release.getCol(),
+                            entry.getSource(), entry.getDestination(), LocalDate.now());
+                    synchronized (this) {
+                        addTicketToUser(user, ticket);
+                    }
+                    promoted++;
+                    System.out.println("UserBookingService: Promoted " + user.getName() + " from the waitlist to seat ("
+                            + release.getRow() + "," + release.getCol() + ") on train " + train.getTrainId() + ".");
+                } else {
+                    seatRow.set(release.getCol(), 0); // Everyone left the waitlist in the meantime
+                    seatChangeFeed.publish(train.getTrainId(), release.getRow(), release.getCol(), SeatChange.AVAILABLE);
+                }
+            }
+        }
+
+        trainService.saveAllTrains();
+        if (promoted > 0) {
+            try {
+                saveUserListToFile();
+            } catch (IOException e) {
+                System.err.println("Error saving user data after waitlist promotion: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Gives the ticket's seat back (or to the waitlist). Tickets booked before seats were recorded
+    // on the ticket can't be matched to a seat; returns false for those.
+    private boolean freeSeatOf(Ticket ticket) throws IOException {
+        Train bookedTrain = (ticket.getTrain() != null) ? trainService.getTrainById(ticket.getTrain().getTrainId()) : null;
+        if (bookedTrain == null || ticket.getSeatRow() == null || ticket.getSeatCol() == null) {
+            return false;
+        }
+        freeSeat(bookedTrain, ticket.getSeatRow(), ticket.getSeatCol());
+        return true;
+    }
+
+    // Frees a cancelled seat. If anyone is waiting on the train, the seat stays marked as booked
+    // and is handed to the waitlist allocator, so newcomers can't jump the queue.
+    private void freeSeat(Train train, int row, int col) throws IOException {
+        synchronized (lockFor(train)) {
+            List<List<Integer>> seats = train.getSeats();
+            if (row < 0 || row >= seats.size() || col < 0 || col >= seats.get(row).size()) {
+                System.out.println("NOTE: Ticket refers to a seat that no longer exists on train " + train.getTrainId() + ".");
+                return;
+            }
+            if (waitlistService.hasWaiting(train.getTrainId())) {
+                waitlistService.publishSeatReleased(train.getTrainId(), row, col);
+            } else {
+                seats.get(row).set(col, 0); // Mark as available again
+                trainService.updateTrainSeats(train);
+                seatChangeFeed.publish(train.getTrainId(), row, col, SeatChange.AVAILABLE);
+            }
+        }
+    }
+
+    // Runs once at startup, after trains and users have loaded and before any account operation.
+    // Waitlists and seats waiting for the allocator live in memory only, and the cancelled ticket
+    // is already gone from users.json, so a stop in between leaves a seat booked with no owner.
+    // Every booked seat that no ticket refers to is made available again. Trains that still
+    // have tickets without a recorded seat are left alone, since any booked seat may be theirs.
+    private void releaseOrphanedSeats() {
+        Map<String, Set<List<Integer>>> ticketedSeats = new HashMap<>();
+        Set<String> unmatchedTrains = new HashSet<>();
+        for (User user : userList) {
+            for (Ticket ticket : user.getTicketsBooked()) {
+                if (ticket.getTrain() == null) {
+                    continue;
+                }
+                String trainId = ticket.getTrain().getTrainId().toLowerCase();
+                if (ticket.getSeatRow() == null || ticket.getSeatCol() == null) {
+                    unmatchedTrains.add(trainId);
+                } else {
+                    ticketedSeats.computeIfAbsent(trainId, k -> new HashSet<>())
+                            .add(List.of(ticket.getSeatRow(), ticket.getSeatCol()));
+                }
+            }
+        }
+
+        int released = 0;
+        for (Train train : trainService.getAllTrains()) {
+            String trainId = train.getTrainId().toLowerCase();
+            if (unmatchedTrains.contains(trainId) || train.getSeats() == null) {
+                continue;
+            }
+            Set<List<Integer>> owned = ticketedSeats.getOrDefault(trainId, Collections.emptySet());
+            synchronized (lockFor(train)) {
+                List<List<Integer>> seats = train.getSeats();
+                for (int row = 0; row < seats.size(); row++) {
+                    List<Integer> seatRow = seats.get(row);
+                    for (int col = 0; seatRow != null && col < seatRow.size(); col++) {
+                        if (Integer.valueOf(1).equals(seatRow.get(col)) && !owned.contains(List.of(row, col))) {
+                            seatRow.set(col, 0);
+                            released++;
+                        }
+                    }
+                }
+            }
+        }
+        if (released > 0) {
+            System.out.println("UserBookingService: Released " + released + " booked seat(s) that no ticket refers to.");
+            trainService.saveAllTrains();
+        }
+    }
+
+    private synchronized User findUserById(String userId) {
+        return users().stream()
+                .filter(u -> u.getUserId().equals(userId))
+                .findFirst()
+                .orElse(null);
+    }
+
+    // Makes this node a replication primary: every booking mutation (seat states, tickets, sign-ups,
+    // train updates) is appended to an ordered log and streamed to replicas connecting on 'port'
+    public synchronized ReplicationPrimary enableReplication(int port) throws IOException {
+        if (replicationPrimary != null) {
+            return replicationPrimary;
+        }
+        ReplicationLog log = new ReplicationLog();
+        mutationListener = log::append;
+        seatChangeFeed.addListener(change -> log.append(
+                BookingMutation.seatState(change.getTrainId(), change.getRow(), change.getCol(), change.getState())));
+        trainService.addTrainUpdateListener(train -> log.append(BookingMutation.trainUpsert(train)));
+        trainService.addTrainRemovalListener(trainId -> log.append(BookingMutation.trainRemoved(trainId)));
+
+        replicationPrimary = new ReplicationPrimary(port, log, this::replicationSnapshot);
+        replicationPrimary.start();
+        return replicationPrimary;
+    }
+
+    // Current trains (with holds overlaid) and users, used to seed a new or lagging replica
+    private List<BookingMutation> replicationSnapshot() {
+        List<BookingMutation> snapshot = new ArrayList<>();
+        for (Train train : trainService.getAllTrains()) {
+            snapshot.add(BookingMutation.trainUpsert(new Train(train.getTrainId(), train.getTrainNo(),
+                    currentSeatStates(train.getTrainId()), train.getStationTimes(), train.getStations())));
+        }
+        synchronized (this) {
+            for (User user : users()) {
+                snapshot.add(BookingMutation.userUpsert(withoutPassword(user)));
+            }
+        }
+        return snapshot;
+    }
+
+    // Imports a stop_times CSV into the live catalogue (see TimetableImporter). Done here rather
+    // than with TimetableImporter.main, bookings keep their seats, replicas hear about every added
+    // and removed train, and trains.json is not overwritten by this process afterwards.
+    // A REPLACE that would drop a train with tickets, booked seats, holds or a waitlist is refused
+    // with an IOException listing those trains; nothing is imported in that case.
+    public TimetableImportResult importTimetable(File stopTimesFile, TimetableImporter.Mode mode) throws IOException {
+        awaitTrainsReady();
+        Set<String> inUse = (mode == TimetableImporter.Mode.REPLACE) ? trainsInUse() : Set.of();
+        // Seat maps are read without the train lock: the check runs under the TrainService
+        // monitor, which a booking holding that lock may be waiting for
+        return new TimetableImporter(trainService).importFile(stopTimesFile, mode,
+                train -> inUse.contains(train.getTrainId().toLowerCase()) || TimetableImporter.hasBookedSeats(train));
+    }
+
+    // Lowercase IDs of the trains that tickets, holds or waitlists refer to
+    private Set<String> trainsInUse() {
+        Set<String> inUse = new HashSet<>();
+        synchronized (this) {
+            for (User user : users()) {
+                for (Ticket ticket : user.getTicketsBooked()) {
+                    if (ticket.getTrain() != null) {
+                        inUse.add(ticket.getTrain().getTrainId().toLowerCase());
+                    }
+                }
+            }
+        }
+        for (Train train : trainService.getAllTrains()) {
+            String trainId = train.getTrainId();
+            if (!seatHoldService.holdsOnTrain(trainId).isEmpty() || waitlistService.hasWaiting(trainId)) {
+                inUse.add(trainId.toLowerCase());
+            }
+        }
+        return inUse;
+    }
+
+    // Occupancy reports and live sales counters for operations dashboards
+    public BookingAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    // Seat maps copied train by train (each under its own lock, in parallel) plus every user's
+    // tickets copied under the monitor. Bookings are only held up for the copy of their train.
+    private BookingAnalytics.Snapshot analyticsSnapshot() {
+        List<Train> trains = trainService.getAllTrains().parallelStream()
+                .map(train -> {
+                    List<List<Integer>> seats = currentSeatStates(train.getTrainId());
+                    return (seats != null) ? new Train(train.getTrainId(), train.getTrainNo(), seats,
+                            train.getStationTimes(), train.getStations()) : null;
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        List<Ticket> tickets = new ArrayList<>();
+        users();
+        synchronized (this) {
+            for (User user : userList) {
+                tickets.addAll(user.getTicketsBooked());
+            }
+        }
+        return new BookingAnalytics.Snapshot(trains, tickets);
+    }
+
+    // Raw passwords never leave this process
+    private static User withoutPassword(User user) {
+        return new User(user.getName(), null, user.getHashedPassword(),
+                new ArrayList<>(user.getTicketsBooked()), user.getUserId());
+    }
+
+    // Books the seat through the admission controller: rate-limited per user, rejected early
+    // when the train is sold out, and queued per train so flash-sale bursts can't pile up
+    public AdmissionResult submitBooking(Train train, int row, int col) {
+        return submitBooking(train, row, col, LocalDate.now());
+    }
+
+    public AdmissionResult submitBooking(Train train, int row, int col, LocalDate travelDate) {
+        User user = currentUser;
+        if (user == null || train == null) {
+            // Let bookTrainSeat print the usual error message
+            return bookTrainSeat(user, train, row, col, travelDate) ? AdmissionResult.booked() : AdmissionResult.failed();
+        }
+        return admissionController.submit(user.getUserId(), train.getTrainId(),
+                () -> trainService.getAvailableSeatsCount(train) - seatHoldService.heldSeatCount(train.getTrainId(), user.getUserId()),
+                () -> bookTrainSeat(user, train, row, col, travelDate));
+    }
+
+    // One monitor per train ID so bookings and holds on the same train don't interleave
+    private Object lockFor(Train train) {
+        return trainLocks.computeIfAbsent(train.getTrainId().toLowerCase(), k -> new Object());
     }
 
     // Refined cancelBooking method
@@ -208,7 +874,7 @@ public class UserBookingService {
         }
 
         // Find the user in userList to get the mutable list of tickets
-        Optional<User> userInListOpt = userList.stream()
+        Optional<User> userInListOpt = users().stream()
             .filter(u -> u.getUserId().equals(currentUser.getUserId()))
             .findFirst();
 
@@ -228,28 +894,32 @@ public class UserBookingService {
 
             if (ticketToRemoveOpt.isPresent()) {
                 Ticket ticketToRemove = ticketToRemoveOpt.get();
-                boolean removed = tickets.remove(ticketToRemove); // Remove the ticket from the list
+                try {
+                    // Keep the cancelled ticket in the user's history
+                    ticketArchive.append(Collections.singletonList(new ArchivedTicket(
+                            ownedBy(ticketToRemove, userInList), ArchivedTicket.Status.CANCELLED, System.currentTimeMillis())));
+                } catch (IOException e) {
+                    System.err.println("Error archiving cancelled ticket: " + e.getMessage());
+                    return Boolean.FALSE;
+                }
+                boolean removed;
+                synchronized (this) { // Ticket lists are edited under the monitor
+                    removed = tickets.remove(ticketToRemove); // Remove the ticket from the list
+                }
+                if (removed) {
+                    analytics.recordCancellation(ticketToRemove);
+                }
 
                 if (removed) {
                     // Update the currentUser object's tickets list as well
                     currentUser.setTicketsBooked(tickets); 
-
-                    // --- TODO: Implement logic to free up the seat in the train's data ---
-                    // This requires finding the train by ID, then finding the specific seat
-                    // and changing its status from 1 (booked) back to 0 (available).
-                    // This needs the row/column information, which is not directly in Ticket.
-                    // You might need to store row/col in Ticket or re-derive it.
-                    // For now, this part is a placeholder.
-                    Train bookedTrain = ticketToRemove.getTrain();
-                    if (bookedTrain != null) {
-                        // This is complex: you need to know the exact seat (row, col) from the ticket
-                        // to free it up. If ticket doesn't store row/col, you can't easily do this.
-                        // For a simple implementation, you might skip freeing the seat or add row/col to Ticket.
-                        System.out.println("NOTE: Seat freeing logic not fully implemented yet for cancellation.");
-                    }
-                    // --- END TODO ---
+                    mutationListener.accept(BookingMutation.ticketRemoved(userInList.getUserId(), ticketIdToCancel));
 
                     try {
+                        if (!freeSeatOf(ticketToRemove)) {
+                            System.out.println("NOTE: This ticket has no recorded seat, so no seat was freed.");
+                        }
+
                         saveUserListToFile(); // Save the updated user list
                         System.out.println("Ticket with ID " + ticketIdToCancel + " has been canceled.");
                         return Boolean.TRUE;
@@ -0,0 +1,197 @@
+package org.example.service;
+
+import org.example.entities.WaitlistEntry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-train, per-leg waitlists plus the event queue that feeds freed seats to them.
+// Cancellations publish a SeatRelease; a background allocator thread drains releases in
+// batches and hands each batch to the BatchAllocator, which promotes waitlisted customers
+// and persists the whole batch in one write. Customers no longer need to poll for seats.
+// Waitlists are kept in memory only; after a restart, UserBookingService gives any seat
+// that was still waiting for the allocator back to general sale.
+public class WaitlistService {
+
+    private static final int MAX_BATCH_SIZE = 256;
+
+    // A seat that was freed by a cancellation and is waiting to be re-allocated
+    public static final class SeatRelease {
+        private final String trainId;
+        private final int row;
+        private final int col;
+
+        public SeatRelease(String trainId, int row, int col) {
+            this.trainId = trainId;
+            this.row = row;
+            this.col = col;
+        }
+
+        public String getTrainId() {
+            return trainId;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public int getCol() {
+            return col;
+        }
+    }
+
+    // Applies a batch of releases, typically by calling pollNext for each one
+    public interface BatchAllocator {
+        void allocate(List<SeatRelease> releases);
+    }
+
+    private static final Comparator<WaitlistEntry> SERVICE_ORDER = Comparator
+            .comparingInt(WaitlistEntry::getPriority).reversed()
+            .thenComparingLong(WaitlistEntry::getSequence);
+
+    // trainId (lower case) -> leg ("source->destination") -> queue in service order
+    private final Map<String, Map<String, PriorityQueue<WaitlistEntry>>> waitlists = new HashMap<>();
+    private final Map<String, WaitlistEntry> entriesById = new HashMap<>();
+    private final Set<String> waitingUsers = new HashSet<>(); // See waiterKey
+    private final AtomicLong sequence = new AtomicLong();
+    private final BlockingQueue<SeatRelease> releases = new LinkedBlockingQueue<>();
+    private final BatchAllocator allocator;
+    private final Thread allocatorThread;
+
+    public WaitlistService(BatchAllocator allocator) {
+        this.allocator = allocator;
+        this.allocatorThread = new Thread(this::runAllocator, "waitlist-allocator");
+        allocatorThread.setDaemon(true);
+        allocatorThread.start();
+    }
+
+    // Returns null if the user is already waiting on the train: one freed seat per customer is
+    // all a waitlist promises, whatever leg they asked for
+    public synchronized WaitlistEntry join(String userId, String trainId, String source, String destination, int priority) {
+        if (!waitingUsers.add(waiterKey(userId, trainId))) {
+            return null;
+        }
+        WaitlistEntry entry = new WaitlistEntry(UUID.randomUUID().toString(), userId, trainId,
+                source, destination, priority, sequence.incrementAndGet());
+        waitlists.computeIfAbsent(trainId.toLowerCase(), k -> new HashMap<>())
+                .computeIfAbsent(legKey(source, destination), k -> new PriorityQueue<>(SERVICE_ORDER))
+                .add(entry);
+        entriesById.put(entry.getEntryId(), entry);
+        return entry;
+    }
+
+    // Removes the entry if it belongs to the user. Returns false if it was already promoted or withdrawn.
+    public synchronized boolean withdraw(String entryId, String userId) {
+        WaitlistEntry entry = entriesById.get(entryId);
+        if (entry == null || !entry.getUserId().equals(userId)) {
+            return false;
+        }
+        entriesById.remove(entryId);
+        waitingUsers.remove(waiterKey(userId, entry.getTrainId()));
+        Map<String, PriorityQueue<WaitlistEntry>> legs = waitlists.get(entry.getTrainId().toLowerCase());
+        if (legs != null) {
+            PriorityQueue<WaitlistEntry> queue = legs.get(legKey(entry.getSource(), entry.getDestination()));
+            if (queue != null) {
+                queue.remove(entry);
+            }
+        }
+        return true;
+    }
+
+    public synchronized boolean hasWaiting(String trainId) {
+        Map<String, PriorityQueue<WaitlistEntry>> legs = waitlists.get(trainId.toLowerCase());
+        if (legs == null) {
+            return false;
+        }
+        for (PriorityQueue<WaitlistEntry> queue : legs.values()) {
+            if (!queue.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Removes and returns the next customer to serve on the train across all legs, or null.
+    // Seats are held for the whole journey, so any leg's customer can take a freed seat.
+    public synchronized WaitlistEntry pollNext(String trainId) {
+        Map<String, PriorityQueue<WaitlistEntry>> legs = waitlists.get(trainId.toLowerCase());
+        if (legs == null) {
+            return null;
+        }
+        PriorityQueue<WaitlistEntry> best = null;
+        for (PriorityQueue<WaitlistEntry> queue : legs.values()) {
+            WaitlistEntry head = queue.peek();
+            if (head != null && (best == null || SERVICE_ORDER.compare(head, best.peek()) < 0)) {
+                best = queue;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        WaitlistEntry entry = best.poll();
+        entriesById.remove(entry.getEntryId());
+        waitingUsers.remove(waiterKey(entry.getUserId(), entry.getTrainId()));
+        return entry;
+    }
+
+    // Position (1-based) of the entry among everyone waiting on its train, or -1 if it is gone
+    public synchronized int positionOf(String entryId) {
+        WaitlistEntry entry = entriesById.get(entryId);
+        if (entry == null) {
+            return -1;
+        }
+        int ahead = 0;
+        for (PriorityQueue<WaitlistEntry> queue : waitlists.get(entry.getTrainId().toLowerCase()).values()) {
+            for (WaitlistEntry other : queue) {
+                if (SERVICE_ORDER.compare(other, entry) < 0) {
+                    ahead++;
+                }
+            }
+        }
+        return ahead + 1;
+    }
+
+    public void publishSeatReleased(String trainId, int row, int col) {
+        releases.add(new SeatRelease(trainId, row, col));
+    }
+
+    private void runAllocator() {
+        List<SeatRelease> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(releases.take()); // Block until there is work
+                releases.drainTo(batch, MAX_BATCH_SIZE - 1); // Then grab whatever else piled up
+                allocator.allocate(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                System.err.println("WaitlistService: Error allocating released seats: " + e.getMessage());
+                e.printStackTrace();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    public void shutdown() {
+        allocatorThread.interrupt();
+    }
+
+    private static String waiterKey(String userId, String trainId) {
+        return userId + "|" + trainId.toLowerCase();
+    }
+
+    private static String legKey(String source, String destination) {
+        return source.toLowerCase() + "->" + destination.toLowerCase();
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.example.entities.Ticket;
+import org.example.entities.Train;
+
+import java.util.List;
+
+// Jackson settings behind StorageFormat.COMPACT_JSON: seat maps are run-length encoded
+// (SeatMapCodec) and the display strings derived from getters (train_info, ticket_info)
+// are left out. Readers don't need the module; both are understood or ignored anyway.
+public class CompactJsonModule extends SimpleModule {
+
+    public CompactJsonModule() {
+        super("CompactJsonModule");
+        setMixInAnnotation(Train.class, TrainMixin.class);
+        setMixInAnnotation(Ticket.class, TicketMixin.class);
+    }
+
+    abstract static class TrainMixin {
+        @JsonSerialize(using = SeatMapCodec.Serializer.class)
+        abstract List<List<Integer>> getSeats();
+
+        @JsonIgnore
+        abstract String getTrainInfo();
+    }
+
+    abstract static class TicketMixin {
+        @JsonIgnore
+        abstract String getTicketInfo();
+    }
+}
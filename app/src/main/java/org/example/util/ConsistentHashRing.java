@@ -0,0 +1,90 @@
+package org.example.util;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+// Consistent hashing with virtual nodes. Each node is placed on the ring 'virtualNodes' times,
+// which evens out the share of keys per node; adding or removing a node only moves the keys
+// that fall into the arcs it gains or loses (about 1/N of them).
+public class ConsistentHashRing<T> {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final int virtualNodes;
+    private final Function<T, String> nodeName;
+    private final TreeMap<Long, T> ring = new TreeMap<>();
+    private final Set<T> nodes = new LinkedHashSet<>();
+
+    // 'nodeName' must be stable and unique per node (e.g. "host:port"); it decides ring positions
+    public ConsistentHashRing(int virtualNodes, Function<T, String> nodeName) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be positive: " + virtualNodes);
+        }
+        this.virtualNodes = virtualNodes;
+        this.nodeName = nodeName;
+    }
+
+    public synchronized void addNode(T node) {
+        if (!nodes.add(node)) {
+            return;
+        }
+        String name = nodeName.apply(node);
+        for (int i = 0; i < virtualNodes; i++) {
+            ring.put(hash(name + "#" + i), node);
+        }
+    }
+
+    public synchronized void removeNode(T node) {
+        if (!nodes.remove(node)) {
+            return;
+        }
+        String name = nodeName.apply(node);
+        for (int i = 0; i < virtualNodes; i++) {
+            ring.remove(hash(name + "#" + i));
+        }
+    }
+
+    // The node owning the key: the first virtual node clockwise from the key's hash
+    public synchronized T nodeFor(String key) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        SortedMap<Long, T> tail = ring.tailMap(hash(key));
+        return tail.isEmpty() ? ring.firstEntry().getValue() : tail.get(tail.firstKey());
+    }
+
+    public synchronized List<T> getNodes() {
+        return new ArrayList<>(nodes);
+    }
+
+    // Share of the hash space owned by each node, useful to check the spread of virtual nodes
+    public synchronized Map<T, Double> ownership() {
+        Map<T, Double> shares = new LinkedHashMap<>();
+        Long previous = ring.isEmpty() ? null : ring.lastKey();
+        for (Map.Entry<Long, T> entry : ring.entrySet()) {
+            // Unsigned distance from the previous point, wrapping around the ring
+            double arc = (double) (entry.getKey() - previous) / Math.pow(2, 64);
+            if (arc <= 0) {
+                arc += 1.0;
+            }
+            shares.merge(entry.getValue(), arc, Double::sum);
+            previous = entry.getKey();
+        }
+        return shares;
+    }
+
+    private static long hash(String key) {
+        return HASH.hashString(key, StandardCharsets.UTF_8).asLong();
+    }
+}
@@ -0,0 +1,186 @@
+package org.example.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// A hashed timing wheel: timeouts are dropped into one of 'wheelSize' buckets based on
+// their deadline tick, and a single background ticker walks one bucket per tick.
+// Scheduling and cancelling are O(1), and the ticker only touches the entries in the
+// current bucket, so hundreds of thousands of pending timeouts cost a small node each
+// instead of a timer thread or a periodic full scan.
+public class HashedTimingWheel<T> {
+
+    private final long tickNanos;
+    private final Bucket<T>[] wheel;
+    private final int mask;
+    private final long startNanos;
+    private final Consumer<T> onExpire;
+    private final ScheduledExecutorService ticker;
+
+    private long currentTick = 0; // Last tick that has been fully processed
+    private int pendingCount = 0;
+
+    public HashedTimingWheel(long tickDuration, TimeUnit unit, int wheelSize, Consumer<T> onExpire) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be positive: " + tickDuration);
+        }
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("wheelSize must be positive: " + wheelSize);
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        // Round the wheel up to a power of two so the bucket index is a cheap mask
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        if (size <= 0) {
+            size = 1;
+        }
+        @SuppressWarnings("unchecked")
+        Bucket<T>[] buckets = (Bucket<T>[]) new Bucket<?>[size];
+        this.wheel = buckets;
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket<>();
+        }
+        this.mask = size - 1;
+        this.onExpire = onExpire;
+        this.startNanos = System.nanoTime();
+
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "timing-wheel-ticker");
+            t.setDaemon(true); // Never keep the JVM alive just for pending timeouts
+            return t;
+        });
+        ticker.scheduleAtFixedRate(() -> advanceTo(System.nanoTime()), tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Schedules 'payload' to expire after the given delay. The returned handle can be cancelled.
+    public Timeout<T> schedule(T payload, long delay, TimeUnit unit) {
+        long deadlineNanos = System.nanoTime() - startNanos + unit.toNanos(delay);
+        // Round up so a timeout never fires before its deadline
+        long deadlineTick = Math.max(1, (deadlineNanos + tickNanos - 1) / tickNanos);
+
+        Timeout<T> timeout = new Timeout<>(this, payload);
+        synchronized (this) {
+            long ticks = Math.max(deadlineTick, currentTick + 1);
+            timeout.remainingRounds = (ticks - currentTick - 1) / wheel.length;
+            Bucket<T> bucket = wheel[(int) (ticks & mask)];
+            bucket.add(timeout);
+            pendingCount++;
+        }
+        return timeout;
+    }
+
+    // Processes every tick up to 'nowNanos'. Called by the ticker thread, but safe to call directly.
+    public void advanceTo(long nowNanos) {
+        long targetTick = (nowNanos - startNanos) / tickNanos;
+        List<T> expired = new ArrayList<>();
+        synchronized (this) {
+            while (currentTick < targetTick) {
+                currentTick++;
+                wheel[(int) (currentTick & mask)].expire(expired);
+            }
+            pendingCount -= expired.size();
+        }
+        // Run callbacks outside the lock so they may schedule or cancel other timeouts
+        for (T payload : expired) {
+            try {
+                onExpire.accept(payload);
+            } catch (RuntimeException e) {
+                System.err.println("HashedTimingWheel: Error in expiry callback: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public synchronized int pendingCount() {
+        return pendingCount;
+    }
+
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    private synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.bucket == null) {
+            return false; // Already expired or cancelled
+        }
+        timeout.bucket.remove(timeout);
+        pendingCount--;
+        return true;
+    }
+
+    // Handle for a scheduled timeout; doubles as the node of its bucket's linked list.
+    public static final class Timeout<T> {
+        private final HashedTimingWheel<T> owner;
+        private final T payload;
+        private long remainingRounds;
+        private Bucket<T> bucket;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(HashedTimingWheel<T> owner, T payload) {
+            this.owner = owner;
+            this.payload = payload;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        // Returns true if the timeout was still pending and will no longer fire
+        public boolean cancel() {
+            return owner.cancel(this);
+        }
+    }
+
+    // Intrusive doubly-linked list so removal does not need a search
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+        private Timeout<T> tail;
+
+        void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        // Removes entries whose last round is due and collects their payloads; others lose a round
+        void expire(List<T> expired) {
+            Timeout<T> timeout = head;
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    expired.add(timeout.payload);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.ObjIntConsumer;
+
+// Loads a top-level JSON array in chunks. One thread tokenizes the file into element trees;
+// every 'chunkSize' elements are handed to a fork-join pool, which binds them to objects and
+// then runs the chunk listener (e.g. to build indexes) while the file is still being read.
+// The returned list keeps the file order.
+public class ParallelJsonArrayLoader<T> {
+
+    private static final int DEFAULT_CHUNK_SIZE = 512;
+
+    private final ObjectMapper objectMapper;
+    private final Class<T> elementType;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public ParallelJsonArrayLoader(ObjectMapper objectMapper, Class<T> elementType) {
+        this(objectMapper, elementType, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelJsonArrayLoader(ObjectMapper objectMapper, Class<T> elementType, ForkJoinPool pool, int chunkSize) {
+        this.objectMapper = objectMapper;
+        this.elementType = elementType;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    // 'chunkListener' runs on pool threads, possibly concurrently, once per bound chunk.
+    // It also gets the chunk's position in the file (0, 1, 2, ...).
+    public List<T> load(File file, ObjIntConsumer<List<T>> chunkListener) throws IOException {
+        List<ForkJoinTask<List<T>>> tasks = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(file)) {
+            JsonToken first = parser.nextToken();
+            if (first == null) {
+                return new ArrayList<>(); // Empty file
+            }
+            if (first != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array in " + file);
+            }
+
+            List<JsonNode> chunk = new ArrayList<>(chunkSize);
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                chunk.add(parser.readValueAsTree());
+                if (chunk.size() == chunkSize) {
+                    tasks.add(pool.submit(bindTask(chunk, tasks.size(), chunkListener)));
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                tasks.add(pool.submit(bindTask(chunk, tasks.size(), chunkListener)));
+            }
+        }
+
+        List<T> result = new ArrayList<>();
+        for (ForkJoinTask<List<T>> task : tasks) {
+            try {
+                result.addAll(task.join());
+            } catch (RuntimeException e) {
+                throw new IOException("Failed to load " + file + ": " + e.getMessage(), e);
+            }
+        }
+        return result;
+    }
+
+    private ForkJoinTask<List<T>> bindTask(List<JsonNode> nodes, int chunkIndex, ObjIntConsumer<List<T>> chunkListener) {
+        return ForkJoinTask.adapt(() -> {
+            List<T> items = new ArrayList<>(nodes.size());
+            for (JsonNode node : nodes) {
+                items.add(objectMapper.treeToValue(node, elementType));
+            }
+            chunkListener.accept(items, chunkIndex);
+            return items;
+        });
+    }
+}
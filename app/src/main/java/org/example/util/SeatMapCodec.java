@@ -0,0 +1,169 @@
+package org.example.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+// Run-length encoding of a seat matrix into a short string: "<rows>x<cols>:<base64url>", where
+// the payload is (state byte, run length varint) pairs over the seats in row order. An empty
+// 4x6 train becomes "4x6:ABg" instead of six nested arrays. Only rectangular maps with states
+// 0-255 are encoded; anything else is written as plain arrays by the Serializer.
+public final class SeatMapCodec {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    // Far beyond any real train; bounds what decode() will allocate
+    static final int MAX_SEATS = 1_000_000;
+
+    private SeatMapCodec() {
+    }
+
+    // Returns null if the map can't be run-length encoded
+    public static String encode(List<List<Integer>> seats) {
+        int rows = seats.size();
+        int cols = (rows > 0 && seats.get(0) != null) ? seats.get(0).size() : 0;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int runState = -1;
+        int runLength = 0;
+        for (List<Integer> row : seats) {
+            if (row == null || row.size() != cols) {
+                return null; // Ragged
+            }
+            for (Integer state : row) {
+                if (state == null || state < 0 || state > 255) {
+                    return null;
+                }
+                if (state == runState) {
+                    runLength++;
+                } else {
+                    writeRun(out, runState, runLength);
+                    runState = state;
+                    runLength = 1;
+                }
+            }
+        }
+        writeRun(out, runState, runLength);
+        return rows + "x" + cols + ":" + ENCODER.encodeToString(out.toByteArray());
+    }
+
+    private static void writeRun(ByteArrayOutputStream out, int state, int length) {
+        if (length == 0) {
+            return;
+        }
+        out.write(state);
+        while (length >= 0x80) {
+            out.write((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        out.write(length);
+    }
+
+    // Rebuilds a mutable seat matrix; bookings update it in place. The header is checked against
+    // MAX_SEATS and against the runs before anything is allocated, so a corrupt or hostile string
+    // fails with an IOException instead of exhausting memory.
+    public static List<List<Integer>> decode(String encoded) throws IOException {
+        int x = encoded.indexOf('x');
+        int colon = encoded.indexOf(':');
+        if (x < 1 || colon < x) {
+            throw new IOException("Not an encoded seat map: " + encoded);
+        }
+        int rows;
+        int cols;
+        byte[] runs;
+        try {
+            rows = Integer.parseInt(encoded.substring(0, x));
+            cols = Integer.parseInt(encoded.substring(x + 1, colon));
+            runs = DECODER.decode(encoded.substring(colon + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Not an encoded seat map: " + encoded, e);
+        }
+        if (rows < 0 || cols < 0 || (long) rows * cols > MAX_SEATS || (cols == 0 && rows > MAX_SEATS)) {
+            throw new IOException("Seat map size " + rows + "x" + cols + " is out of range: " + encoded);
+        }
+
+        // First pass: split the runs and check they add up to exactly rows x cols seats
+        int[] states = new int[runs.length / 2];
+        int[] lengths = new int[runs.length / 2];
+        int runCount = 0;
+        long seatCount = 0;
+        int i = 0;
+        while (i < runs.length) {
+            int state = runs[i++] & 0xFF;
+            long length = 0;
+            int shift = 0;
+            int b;
+            do {
+                if (i >= runs.length || shift > 28) {
+                    throw new IOException("Truncated seat map: " + encoded);
+                }
+                b = runs[i++] & 0xFF;
+                length |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            seatCount += length;
+            if (seatCount > (long) rows * cols) {
+                throw new IOException("Seat map has more seats than " + rows + "x" + cols + ": " + encoded);
+            }
+            states[runCount] = state;
+            lengths[runCount++] = (int) length;
+        }
+        if (seatCount != (long) rows * cols) {
+            throw new IOException("Seat map has fewer seats than " + rows + "x" + cols + ": " + encoded);
+        }
+
+        List<List<Integer>> seats = new ArrayList<>(rows);
+        List<Integer> row = new ArrayList<>(cols);
+        for (int run = 0; run < runCount; run++) {
+            for (int n = 0; n < lengths[run]; n++) {
+                row.add(states[run]);
+                if (row.size() == cols) {
+                    seats.add(row);
+                    row = new ArrayList<>(cols);
+                }
+            }
+        }
+        while (seats.size() < rows) {
+            seats.add(new ArrayList<>()); // Rows of a 0-column map
+        }
+        return seats;
+    }
+
+    // Writes the encoded string, or plain arrays when the map can't be encoded
+    public static class Serializer extends JsonSerializer<List<List<Integer>>> {
+        @Override
+        public void serialize(List<List<Integer>> seats, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            String encoded = encode(seats);
+            if (encoded != null) {
+                gen.writeString(encoded);
+            } else {
+                gen.writeStartArray();
+                for (List<Integer> row : seats) {
+                    serializers.defaultSerializeValue(row, gen);
+                }
+                gen.writeEndArray();
+            }
+        }
+    }
+
+    // Reads either form, so files and messages written with and without compact encoding mix freely
+    public static class Deserializer extends JsonDeserializer<List<List<Integer>>> {
+        @Override
+        public List<List<Integer>> deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() == JsonToken.VALUE_STRING) {
+                return decode(p.getText());
+            }
+            return p.readValueAs(new TypeReference<List<List<Integer>>>() {});
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.util;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+// How a file or message is encoded. Chosen per target with the system property
+// "booking.format.<target>" (targets: trains, users, archive, cluster, replication), falling
+// back to "booking.format" and then to JSON. Readers accept every format, so a target can be
+// switched at any time and old files still load. BINARY exists for the archive only: asking for
+// it on another target is an error, and "booking.format=BINARY" gives the others COMPACT_JSON.
+public enum StorageFormat {
+    JSON,         // Plain Jackson output, as always
+    COMPACT_JSON, // Run-length encoded seat maps, no derived fields, no nulls, no indentation
+    BINARY;       // Versioned binary records (TicketCodec), archive only
+
+    public static StorageFormat forTarget(String target) {
+        String value = System.getProperty("booking.format." + target, System.getProperty("booking.format"));
+        if (value == null) {
+            return JSON;
+        }
+        StorageFormat format;
+        try {
+            format = valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("StorageFormat: Unknown format '" + value + "' for " + target + "; using JSON.");
+            return JSON;
+        }
+        if (format == BINARY && !target.equals("archive")) {
+            if (System.getProperty("booking.format." + target) != null) {
+                throw new IllegalArgumentException("booking.format." + target
+                        + "=BINARY is not supported: only the archive has a binary format. Use COMPACT_JSON.");
+            }
+            System.err.println("StorageFormat: BINARY only applies to the archive; using COMPACT_JSON for " + target + ".");
+            return COMPACT_JSON;
+        }
+        return format;
+    }
+
+    public boolean isCompact() {
+        return this != JSON;
+    }
+
+    // Applies the format to a mapper that is about to write; leaves JSON mappers untouched
+    public ObjectMapper configure(ObjectMapper objectMapper) {
+        if (isCompact()) {
+            objectMapper.disable(SerializationFeature.INDENT_OUTPUT);
+            objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+            objectMapper.registerModule(new CompactJsonModule());
+        }
+        return objectMapper;
+    }
+}
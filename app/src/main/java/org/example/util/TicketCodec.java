@@ -0,0 +1,119 @@
+package org.example.util;
+
+import org.example.entities.ArchivedTicket;
+import org.example.entities.Ticket;
+import org.example.entities.Train;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Binary record format for archived tickets (StorageFormat.BINARY, used by TicketArchive only).
+// Every record starts with a version byte so the layout can evolve; readers reject versions
+// they don't know instead of guessing.
+//
+// Version 1: ticketId, userId, source, destination, dateOfTravel (nullable strings), seatRow,
+// seatCol (nullable ints), then the train if present: trainId, trainNo, stations, stationTimes.
+// The train's seat map is not part of a ticket record. An archived ticket adds its status
+// and archivedAt before the ticket.
+public final class TicketCodec {
+
+    public static final int VERSION = 1;
+
+    private TicketCodec() {
+    }
+
+    public static void writeArchived(DataOutput out, ArchivedTicket record) throws IOException {
+        out.writeByte(VERSION);
+        writeString(out, (record.getStatus() != null) ? record.getStatus().name() : null);
+        out.writeLong(record.getArchivedAt());
+        writeTicketFields(out, record.getTicket());
+    }
+
+    public static ArchivedTicket readArchived(DataInput in) throws IOException {
+        checkVersion(in.readUnsignedByte());
+        String status = readString(in);
+        long archivedAt = in.readLong();
+        Ticket ticket = readTicketFields(in);
+        return new ArchivedTicket(ticket, (status != null) ? ArchivedTicket.Status.valueOf(status) : null, archivedAt);
+    }
+
+    private static void checkVersion(int version) throws IOException {
+        if (version != VERSION) {
+            throw new IOException("Unsupported ticket record version " + version);
+        }
+    }
+
+    private static void writeTicketFields(DataOutput out, Ticket ticket) throws IOException {
+        writeString(out, ticket.getTicketId());
+        writeString(out, ticket.getUserId());
+        writeString(out, ticket.getSource());
+        writeString(out, ticket.getDestination());
+        writeString(out, ticket.getDateOfTravel());
+        writeInteger(out, ticket.getSeatRow());
+        writeInteger(out, ticket.getSeatCol());
+        Train train = ticket.getTrain();
+        out.writeBoolean(train != null);
+        if (train != null) {
+            writeString(out, train.getTrainId());
+            writeString(out, train.getTrainNo());
+            out.writeInt(train.getStations().size());
+            for (String station : train.getStations()) {
+                writeString(out, station);
+            }
+            out.writeInt(train.getStationTimes().size());
+            for (Map.Entry<String, String> entry : train.getStationTimes().entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+        }
+    }
+
+    private static Ticket readTicketFields(DataInput in) throws IOException {
+        Ticket ticket = new Ticket(readString(in), readString(in), readString(in), readString(in), readString(in), null);
+        ticket.setSeatRow(readInteger(in));
+        ticket.setSeatCol(readInteger(in));
+        if (in.readBoolean()) {
+            String trainId = readString(in);
+            String trainNo = readString(in);
+            int stationCount = in.readInt();
+            List<String> stations = new ArrayList<>(stationCount);
+            for (int i = 0; i < stationCount; i++) {
+                stations.add(readString(in));
+            }
+            int timeCount = in.readInt();
+            Map<String, String> stationTimes = new LinkedHashMap<>();
+            for (int i = 0; i < timeCount; i++) {
+                stationTimes.put(readString(in), readString(in));
+            }
+            ticket.setTrain(new Train(trainId, trainNo, null, stationTimes, stations));
+        }
+        return ticket;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeInteger(DataOutput out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.util;
+
+// Classic token bucket: holds up to 'capacity' tokens and refills at a fixed rate.
+// Refill is computed lazily from the elapsed time, so an idle bucket costs nothing.
+public class TokenBucket {
+
+    private final long capacity;
+    private final double refillPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(long capacity, double refillPerSecond) {
+        if (capacity <= 0 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("capacity and refillPerSecond must be positive");
+        }
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000.0;
+        this.tokens = capacity; // Start full so the first burst is allowed
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    // Takes one token if available. Returns 0 on success, otherwise the nanos until a token will be available.
+    public synchronized long tryConsume() {
+        refill();
+        if (tokens >= 1.0) {
+            tokens -= 1.0;
+            return 0;
+        }
+        return (long) Math.ceil((1.0 - tokens) / refillPerNano);
+    }
+
+    // A full bucket behaves exactly like a new one, so it can be dropped and recreated later
+    public synchronized boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * refillPerNano);
+        lastRefillNanos = now;
+    }
+}
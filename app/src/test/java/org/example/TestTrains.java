@@ -0,0 +1,26 @@
+package org.example;
+
+import org.example.entities.Train;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Trains for tests: one row of free seats, calling at the stations an hour apart from 10:00
+public final class TestTrains {
+
+    private TestTrains() {
+    }
+
+    public static Train train(String trainId, int seats, String... stations) {
+        List<List<Integer>> seatMap = new ArrayList<>();
+        seatMap.add(new ArrayList<>(Collections.nCopies(seats, 0)));
+        Map<String, String> times = new LinkedHashMap<>();
+        for (int i = 0; i < stations.length; i++) {
+            times.put(stations[i], String.format("%02d:00:00", 10 + i));
+        }
+        return new Train(trainId, "1", seatMap, times, new ArrayList<>(List.of(stations)));
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.analytics;
+
+import org.example.entities.Ticket;
+import org.example.entities.Train;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.example.TestTrains.train;
+import static org.junit.Assert.*;
+
+public class BookingAnalyticsTest {
+
+    private static Ticket ticket(Train train, String source, String destination) {
+        return new Ticket("t-" + source + destination, "u", source, destination, null, train);
+    }
+
+    private static Map<String, LoadFactor> legs(List<Train> trains, List<Ticket> tickets) {
+        BookingAnalytics analytics = new BookingAnalytics(() -> new BookingAnalytics.Snapshot(trains, tickets), trainId -> null);
+        return analytics.occupancyReport().getLegs().stream()
+                .collect(Collectors.toMap(LoadFactor::getKey, Function.identity()));
+    }
+
+    @Test
+    public void aTicketLoadsEveryLegItsJourneySpans() {
+        Train abcd = train("T1", 4, "a", "b", "c", "d");
+        Map<String, LoadFactor> legs = legs(List.of(abcd),
+                List.of(ticket(abcd, "A", "C"), ticket(abcd, "b", "d"), ticket(abcd, "c", "b")));
+
+        assertEquals(3, legs.size());
+        assertEquals(1, legs.get("a->b").getBookedSeats());
+        assertEquals(2, legs.get("b->c").getBookedSeats());
+        assertEquals(1, legs.get("c->d").getBookedSeats());
+        assertEquals(4, legs.get("b->c").getTotalSeats());
+    }
+
+    @Test
+    public void trainsWithoutStationsHaveNoRouteOrLegsButStillCount() {
+        Train ab = train("T1", 2, "a", "b");
+        Train noStations = train("T2", 3);
+        Train nullStations = new Train("T3", "3", null, null, null) {
+            @Override
+            public List<String> getStations() {
+                return null; // As a catalogue entry without stations may still arrive
+            }
+        };
+        BookingAnalytics analytics = new BookingAnalytics(() -> new BookingAnalytics.Snapshot(
+                List.of(ab, noStations, nullStations), List.of(ticket(ab, "a", "b"), ticket(noStations, "a", "b"))),
+                trainId -> null);
+
+        OccupancyReport report = analytics.occupancyReport();
+
+        assertEquals(List.of("a > b"), report.getRoutes().stream().map(LoadFactor::getKey).collect(Collectors.toList()));
+        assertEquals(List.of("a->b"), report.getLegs().stream().map(LoadFactor::getKey).collect(Collectors.toList()));
+        assertEquals(1, report.getLegs().get(0).getBookedSeats());
+        assertEquals(3, report.getTrains().size());
+        assertEquals(5, report.getOverall().getTotalSeats());
+    }
+
+    @Test
+    public void aLegCountsOnlyTheSeatsAndTicketsOfTrainsRunningIt() {
+        Train abc = train("T1", 4, "a", "b", "c");
+        Train ab = train("T2", 2, "a", "b");
+        Train xy = train("T3", 10, "x", "y");
+        Map<String, LoadFactor> legs = legs(List.of(abc, ab, xy),
+                List.of(ticket(abc, "a", "c"), ticket(ab, "a", "b"), ticket(ab, "a", "b")));
+
+        assertEquals(3, legs.get("a->b").getBookedSeats());
+        assertEquals(6, legs.get("a->b").getTotalSeats());
+        assertEquals(1, legs.get("b->c").getBookedSeats());
+        assertEquals(4, legs.get("b->c").getTotalSeats());
+        assertEquals(0, legs.get("x->y").getBookedSeats());
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.example.TestTrains.train;
+import static org.junit.Assert.*;
+
+// Calls ClusterNode.handle directly; no sockets are opened
+public class ClusterNodeTest {
+
+    private File dataDir;
+    private ClusterNode node;
+
+    @Before
+    public void createNode() throws IOException {
+        dataDir = Files.createTempDirectory("cluster-node").toFile();
+        new ObjectMapper().writeValue(new File(dataDir, "trains.json"), new ArrayList<>());
+        node = new ClusterNode(0, dataDir);
+        node.handle(ClusterRequest.putTrain(train("T1", 2, "a", "b")));
+    }
+
+    @After
+    public void deleteDataDir() throws IOException {
+        try (Stream<Path> files = Files.walk(dataDir.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private int available() throws IOException {
+        return node.handle(ClusterRequest.forTrain(ClusterRequest.Operation.AVAILABILITY, "T1")).getCount();
+    }
+
+    @Test
+    public void aRepeatedBookingRequestIsRecognised() throws IOException {
+        ClusterRequest request = ClusterRequest.book("alice", "T1", 0, 1, "booking-1");
+        assertEquals("booking-1", node.handle(request).getBookingId());
+        assertTrue(node.handle(request).isOk());
+        assertEquals(1, available());
+
+        assertFalse(node.handle(ClusterRequest.book("bob", "T1", 0, 1, "booking-2")).isOk());
+        assertFalse(node.handle(ClusterRequest.book("bob", "T1", 0, 0, "booking-1")).isOk());
+    }
+
+    @Test
+    public void concurrentRetriesOfOneBookingAllSucceedOnce() throws Exception {
+        ClusterRequest request = ClusterRequest.book("alice", "T1", 0, 1, "booking-1");
+        ExecutorService retries = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ClusterResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                responses.add(retries.submit(() -> node.handle(request)));
+            }
+            for (Future<ClusterResponse> response : responses) {
+                assertEquals("booking-1", response.get(5, TimeUnit.SECONDS).getBookingId());
+            }
+        } finally {
+            retries.shutdownNow();
+        }
+        assertEquals(1, available());
+    }
+
+    @Test
+    public void onlyTheOwnerCanCancel() throws IOException {
+        node.handle(ClusterRequest.book("alice", "T1", 0, 0, "booking-1"));
+
+        assertFalse(node.handle(ClusterRequest.cancel("bob", "T1", "booking-1")).isOk());
+        assertFalse(node.handle(ClusterRequest.cancel("alice", "T1", "no-such-booking")).isOk());
+        assertEquals(1, available());
+
+        assertTrue(node.handle(ClusterRequest.cancel("alice", "T1", "booking-1")).isOk());
+        assertFalse(node.handle(ClusterRequest.cancel("alice", "T1", "booking-1")).isOk());
+        assertEquals(2, available());
+    }
+
+    @Test
+    public void aFrozenTrainRefusesSeatChangesAndHandsOverItsBookings() throws IOException {
+        node.handle(ClusterRequest.book("alice", "T1", 0, 0, "booking-1"));
+
+        ClusterResponse frozen = node.handle(ClusterRequest.forTrain(ClusterRequest.Operation.FREEZE_TRAIN, "t1"));
+        assertEquals(1, frozen.getBookings().size());
+        assertFalse(node.handle(ClusterRequest.book("bob", "T1", 0, 1, "booking-2")).isOk());
+        assertFalse(node.handle(ClusterRequest.cancel("alice", "T1", "booking-1")).isOk());
+
+        node.handle(ClusterRequest.forTrain(ClusterRequest.Operation.UNFREEZE_TRAIN, "T1"));
+        assertTrue(node.handle(ClusterRequest.book("bob", "T1", 0, 1, "booking-2")).isOk());
+    }
+
+    @Test
+    public void bookingsSurviveARestart() throws IOException {
+        node.handle(ClusterRequest.book("alice", "T1", 0, 0, "booking-1"));
+
+        ClusterNode restarted = new ClusterNode(0, dataDir);
+        assertTrue(restarted.handle(ClusterRequest.cancel("alice", "T1", "booking-1")).isOk());
+    }
+}
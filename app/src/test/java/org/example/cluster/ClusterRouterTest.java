@@ -0,0 +1,74 @@
+package org.example.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.entities.Train;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.example.TestTrains.train;
+import static org.junit.Assert.*;
+
+// Two nodes on local ports behind one router
+public class ClusterRouterTest {
+
+    private final List<ClusterNode> nodes = new ArrayList<>();
+    private final List<File> dataDirs = new ArrayList<>();
+    private ClusterRouter router;
+
+    @Before
+    public void startCluster() throws IOException {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            File dataDir = Files.createTempDirectory("cluster-router").toFile();
+            new ObjectMapper().writeValue(new File(dataDir, "trains.json"), new ArrayList<>());
+            int port;
+            try (ServerSocket probe = new ServerSocket(0)) {
+                port = probe.getLocalPort();
+            }
+            ClusterNode node = new ClusterNode(port, dataDir);
+            node.start();
+            nodes.add(node);
+            dataDirs.add(dataDir);
+            addresses.add(new InetSocketAddress("localhost", port));
+        }
+        router = new ClusterRouter(addresses);
+    }
+
+    @After
+    public void stopCluster() throws IOException {
+        for (ClusterNode node : nodes) {
+            node.stop();
+        }
+        for (File dataDir : dataDirs) {
+            try (Stream<Path> files = Files.walk(dataDir.toPath())) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    @Test
+    public void searchIgnoresCopiesLeftOnNodesThatDontOwnTheTrain() throws IOException {
+        // A copy on every node, as while the train migrates or after its removal failed
+        for (ClusterNode node : nodes) {
+            node.handle(ClusterRequest.putTrain(train("T1", 2, "a", "b")));
+        }
+        assertNotNull(router.bookSeat("alice", "T1", 0, 0)); // Only the owner's copy changes
+
+        List<Train> found = router.searchTrains("a", "b");
+
+        assertEquals(1, found.size());
+        assertEquals(Integer.valueOf(1), found.get(0).getSeats().get(0).get(0));
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.replication;
+
+import org.example.entities.BookingMutation;
+import org.example.entities.SeatChange;
+import org.example.entities.Ticket;
+import org.example.entities.Train;
+import org.example.entities.User;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.example.TestTrains.train;
+import static org.junit.Assert.*;
+
+public class ReplicatedInventoryTest {
+
+    private final ReplicatedInventory inventory = new ReplicatedInventory();
+
+    private static BookingMutation marker(BookingMutation.Type type, long sequence) {
+        BookingMutation mutation = new BookingMutation(type);
+        mutation.setSequence(sequence);
+        return mutation;
+    }
+
+    private static BookingMutation at(long sequence, BookingMutation mutation) {
+        mutation.setSequence(sequence);
+        return mutation;
+    }
+
+    private void receiveSnapshot(long sequence, Train... trains) {
+        inventory.apply(marker(BookingMutation.Type.SNAPSHOT_BEGIN, sequence));
+        for (Train train : trains) {
+            inventory.apply(at(sequence, BookingMutation.trainUpsert(train)));
+        }
+        inventory.apply(marker(BookingMutation.Type.SNAPSHOT_END, sequence));
+    }
+
+    @Test
+    public void aSnapshotTakesEffectOnlyAtItsEndMarker() {
+        inventory.beginStream("log-1");
+        inventory.apply(marker(BookingMutation.Type.SNAPSHOT_BEGIN, 40));
+        inventory.apply(at(40, BookingMutation.trainUpsert(train("T1", 2, "a", "b"))));
+
+        assertEquals(0, inventory.getLastAppliedSequence());
+        assertNull(inventory.getLogId());
+        assertTrue(inventory.searchTrains("a", "b").isEmpty());
+
+        inventory.apply(marker(BookingMutation.Type.SNAPSHOT_END, 40));
+        assertEquals(40, inventory.getLastAppliedSequence());
+        assertEquals("log-1", inventory.getLogId());
+        assertEquals(1, inventory.searchTrains("a", "b").size());
+    }
+
+    @Test
+    public void aRemovedTrainIsNoLongerServed() {
+        inventory.beginStream("log-1");
+        receiveSnapshot(10, train("T1", 2, "a", "b"), train("T2", 2, "a", "b"));
+        inventory.apply(at(11, BookingMutation.trainRemoved("t1")));
+
+        assertEquals(1, inventory.searchTrains("a", "b").size());
+        assertEquals("T2", inventory.searchTrains("a", "b").get(0).getTrainId());
+        assertEquals(11, inventory.getLastAppliedSequence());
+    }
+
+    @Test
+    public void anInterruptedSnapshotLeavesTheOldStateAndSequence() {
+        inventory.beginStream("log-1");
+        receiveSnapshot(10, train("T1", 2, "a", "b"));
+
+        // The connection drops half-way through a re-seed, and the next one resumes normally
+        inventory.beginStream("log-1");
+        inventory.apply(marker(BookingMutation.Type.SNAPSHOT_BEGIN, 90));
+        inventory.apply(at(90, BookingMutation.trainUpsert(train("T2", 2, "a", "b"))));
+        inventory.beginStream("log-1");
+        inventory.apply(at(11, BookingMutation.seatState("T1", 0, 1, SeatChange.BOOKED)));
+
+        assertEquals(11, inventory.getLastAppliedSequence());
+        assertEquals(1, inventory.getAvailableSeatsCount("t1"));
+        assertEquals(0, inventory.getAvailableSeatsCount("T2"));
+    }
+
+    @Test
+    public void aSnapshotReplacesTrainsTheReplicaNoLongerHas() {
+        inventory.beginStream("log-1");
+        receiveSnapshot(10, train("T1", 2, "a", "b"), train("T2", 2, "a", "b"));
+        inventory.beginStream("log-2");
+        receiveSnapshot(3, train("T2", 2, "a", "b"));
+
+        assertEquals(3, inventory.getLastAppliedSequence());
+        assertEquals("log-2", inventory.getLogId());
+        assertEquals(1, inventory.searchTrains("a", "b").size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void replicasRejectLocalWrites() {
+        inventory.bookSeat("u1", "T1", 0, 0);
+    }
+
+    @Test
+    public void aPromotedReplicaBooksAndCancelsThroughItsLog() throws InterruptedException {
+        inventory.beginStream("log-1");
+        receiveSnapshot(5, train("T1", 2, "a", "b"));
+        inventory.apply(at(6, BookingMutation.userUpsert(new User("alice", null, "hash", new ArrayList<>(), "u1"))));
+        ReplicationLog log = inventory.promote(100);
+
+        Ticket ticket = inventory.bookSeat("u1", "t1", 0, 1);
+        assertNotNull(ticket);
+        assertNull(inventory.bookSeat("u1", "T1", 0, 1));
+        assertEquals(1, inventory.getAvailableSeatsCount("T1"));
+        assertEquals(1, inventory.ticketsFor("u1").size());
+
+        assertTrue(inventory.cancelTicket("u1", ticket.getTicketId()));
+        assertFalse(inventory.cancelTicket("u1", ticket.getTicketId()));
+        assertEquals(2, inventory.getAvailableSeatsCount("T1"));
+
+        List<BookingMutation> written = log.readAfter(6, 10, 0);
+        assertEquals(4, written.size());
+        assertEquals(10, inventory.getLastAppliedSequence());
+    }
+
+    @Test
+    public void promotionStartsANewLogAndFreesHeldSeats() throws InterruptedException {
+        inventory.beginStream("log-1");
+        receiveSnapshot(5, train("T1", 2, "a", "b"));
+        inventory.apply(at(6, BookingMutation.seatState("T1", 0, 0, SeatChange.HELD)));
+        ReplicationLog log = inventory.promote(100);
+
+        // A replica that got further along log-1 than this node must not resume by sequence
+        assertNotEquals("log-1", log.getLogId());
+        assertEquals(log.getLogId(), inventory.getLogId());
+        assertEquals(2, inventory.getAvailableSeatsCount("T1"));
+        List<BookingMutation> written = log.readAfter(6, 10, 0);
+        assertEquals(1, written.size());
+        assertEquals(Integer.valueOf(SeatChange.AVAILABLE), written.get(0).getState());
+    }
+
+    @Test
+    public void aSnapshotIsNotChangedByLaterBookings() {
+        inventory.beginStream("log-1");
+        receiveSnapshot(5, train("T1", 2, "a", "b"));
+        inventory.apply(at(6, BookingMutation.userUpsert(new User("alice", null, "hash", new ArrayList<>(), "u1"))));
+        inventory.promote(100);
+        List<BookingMutation> snapshot = inventory.snapshot();
+
+        inventory.bookSeat("u1", "T1", 0, 0);
+
+        assertEquals(Integer.valueOf(SeatChange.AVAILABLE), snapshot.get(0).getTrain().getSeats().get(0).get(0));
+        assertTrue(snapshot.get(1).getUser().getTicketsBooked().isEmpty());
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.service;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BookingAdmissionControllerTest {
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final CountDownLatch releaseBooking = new CountDownLatch(1);
+
+    @After
+    public void stopCallers() {
+        releaseBooking.countDown();
+        callers.shutdownNow();
+    }
+
+    // Submits a booking that holds the train's queue until releaseBooking opens
+    private Future<AdmissionResult> blockingBooking(BookingAdmissionController controller, String userId) {
+        return callers.submit(() -> controller.submit(userId, "T1", () -> 10, () -> {
+            try {
+                return releaseBooking.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }));
+    }
+
+    private static boolean mustNotRun(String why) {
+        fail(why);
+        return false;
+    }
+
+    private static void awaitQueueDepth(BookingAdmissionController controller, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (controller.queueDepth("t1") < depth) {
+            assertTrue("queue never reached " + depth, System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void aRequestWithAFreeTokenIsBooked() {
+        BookingAdmissionController controller = new BookingAdmissionController();
+        AtomicInteger bookings = new AtomicInteger();
+
+        AdmissionResult booked = controller.submit("alice", "T1", () -> 3, () -> bookings.incrementAndGet() > 0);
+        AdmissionResult failed = controller.submit("alice", "T1", () -> 3, () -> false);
+
+        assertEquals(AdmissionResult.Status.BOOKED, booked.getStatus());
+        assertNull(booked.getRetryAfter());
+        assertEquals(AdmissionResult.Status.FAILED, failed.getStatus());
+        assertEquals(1, bookings.get());
+        assertEquals(0, controller.queueDepth("T1"));
+    }
+
+    @Test
+    public void aUserOutOfTokensIsToldWhenToRetry() {
+        BookingAdmissionController controller = new BookingAdmissionController(4, Duration.ofSeconds(1), 1, 1.0);
+        AtomicInteger bookings = new AtomicInteger();
+
+        assertTrue(controller.submit("alice", "T1", () -> 3, () -> bookings.incrementAndGet() > 0).isBooked());
+        AdmissionResult limited = controller.submit("alice", "T1", () -> 3, () -> bookings.incrementAndGet() > 0);
+
+        assertEquals(AdmissionResult.Status.RATE_LIMITED, limited.getStatus());
+        assertTrue(limited.getRetryAfter().compareTo(Duration.ZERO) > 0);
+        assertTrue(limited.getRetryAfter().compareTo(Duration.ofSeconds(1)) <= 0); // One token at 1/s
+        assertEquals(1, bookings.get());
+        assertTrue(controller.submit("bob", "T1", () -> 3, () -> true).isBooked()); // Buckets are per user
+    }
+
+    @Test
+    public void aSoldOutTrainIsRejectedBeforeQueueing() {
+        BookingAdmissionController controller = new BookingAdmissionController();
+        AtomicInteger checks = new AtomicInteger();
+
+        AdmissionResult soldOut = controller.submit("alice", "T1", () -> 0, () -> mustNotRun("booked a sold-out train"));
+        // Seats that run out while the request waits in the queue are caught by the second check
+        AdmissionResult lastSeatGone = controller.submit("bob", "T1", () -> 1 - checks.getAndIncrement(),
+                () -> mustNotRun("booked a sold-out train"));
+
+        assertEquals(AdmissionResult.Status.SOLD_OUT, soldOut.getStatus());
+        assertNull(soldOut.getRetryAfter());
+        assertEquals(AdmissionResult.Status.SOLD_OUT, lastSeatGone.getStatus());
+        assertEquals(2, checks.get());
+    }
+
+    @Test
+    public void aFullQueueShedsRequestsWithADrainEstimate() throws Exception {
+        BookingAdmissionController controller = new BookingAdmissionController(2, Duration.ofSeconds(5), 5, 1.0);
+        Future<AdmissionResult> running = blockingBooking(controller, "alice");
+        awaitQueueDepth(controller, 1);
+        Future<AdmissionResult> waiting = blockingBooking(controller, "bob");
+        awaitQueueDepth(controller, 2);
+
+        AdmissionResult shed = controller.submit("carol", "T1", () -> 10, () -> mustNotRun("ran past a full queue"));
+
+        assertEquals(AdmissionResult.Status.QUEUE_FULL, shed.getStatus());
+        // Two requests ahead at the initial 20 ms service time estimate
+        assertEquals(Duration.ofMillis(40), shed.getRetryAfter());
+        releaseBooking.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS).isBooked());
+        assertTrue(waiting.get(5, TimeUnit.SECONDS).isBooked());
+        assertEquals(0, controller.queueDepth("T1"));
+    }
+
+    @Test
+    public void aRequestThatWaitsTooLongInTheQueueGivesUp() throws Exception {
+        BookingAdmissionController controller = new BookingAdmissionController(4, Duration.ofMillis(50), 5, 1.0);
+        Future<AdmissionResult> running = blockingBooking(controller, "alice");
+        awaitQueueDepth(controller, 1);
+
+        AdmissionResult gaveUp = controller.submit("bob", "T1", () -> 10, () -> mustNotRun("ran while the queue was busy"));
+
+        assertEquals(AdmissionResult.Status.QUEUE_FULL, gaveUp.getStatus());
+        assertEquals(Duration.ofMillis(40), gaveUp.getRetryAfter()); // Itself and the running booking
+        releaseBooking.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS).isBooked());
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.service;
+
+import org.example.entities.SeatChange;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Flow;
+
+import static org.junit.Assert.*;
+
+// Drains run on a hand-cranked executor, so each test decides when deliveries happen
+public class SeatChangeFeedTest {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final SeatChangeFeed feed = new SeatChangeFeed(trainId -> List.of(List.of(0, 1)), tasks::add);
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static final class Recorder implements Flow.Subscriber<SeatChange> {
+        final List<SeatChange> changes = new ArrayList<>();
+        Throwable error;
+        Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(SeatChange item) {
+            changes.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    @Test
+    public void newWatchersStartWithASnapshot() {
+        Recorder recorder = new Recorder();
+        feed.subscribe("T1", 0, recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+        runTasks();
+
+        assertEquals(2, recorder.changes.size());
+        assertEquals(SeatChange.BOOKED, recorder.changes.get(1).getState());
+    }
+
+    @Test
+    public void pendingChangesToOneSeatAreCoalesced() {
+        feed.publish("T1", 0, 0, SeatChange.HELD);
+        Recorder recorder = new Recorder();
+        feed.subscribe("T1", feed.currentSequence("T1"), recorder);
+
+        feed.publish("T1", 0, 0, SeatChange.BOOKED);
+        feed.publish("T1", 0, 0, SeatChange.AVAILABLE);
+        feed.publish("T1", 0, 1, SeatChange.AVAILABLE);
+        recorder.subscription.request(10);
+        runTasks();
+
+        assertEquals(2, recorder.changes.size());
+        assertEquals(SeatChange.AVAILABLE, recorder.changes.get(0).getState());
+        assertEquals(3, recorder.changes.get(0).getSequence());
+        assertEquals(1, recorder.changes.get(1).getCol());
+    }
+
+    @Test
+    public void nonPositiveDemandFailsOnTheDrainNotTheCaller() {
+        Recorder recorder = new Recorder();
+        feed.subscribe("T1", feed.currentSequence("T1"), recorder);
+
+        recorder.subscription.request(0);
+        assertNull("onError ran on the requesting thread", recorder.error);
+        assertEquals(0, feed.subscriberCount("T1"));
+
+        runTasks();
+        assertTrue(recorder.error instanceof IllegalArgumentException);
+
+        feed.publish("T1", 0, 0, SeatChange.BOOKED);
+        recorder.subscription.request(1);
+        runTasks();
+        assertTrue(recorder.changes.isEmpty());
+    }
+}
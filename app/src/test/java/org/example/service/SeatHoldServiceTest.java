@@ -0,0 +1,72 @@
+package org.example.service;
+
+import org.example.entities.SeatHold;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SeatHoldServiceTest {
+
+    private final CountDownLatch expired = new CountDownLatch(1);
+    private final SeatHoldService holds = new SeatHoldService(Duration.ofMillis(200), hold -> expired.countDown());
+
+    @After
+    public void shutdown() {
+        holds.shutdown();
+    }
+
+    @Test
+    public void aHeldSeatCannotBeHeldAgain() {
+        assertNotNull(holds.placeHold("alice", "T1", 0, 1));
+        assertNull(holds.placeHold("bob", "T1", 0, 1));
+        assertNotNull(holds.placeHold("bob", "T1", 0, 2));
+        assertEquals(2, holds.activeHoldCount());
+    }
+
+    @Test
+    public void trainIdsAreMatchedCaseInsensitively() {
+        assertNotNull(holds.placeHold("alice", "Train-1", 2, 3));
+
+        assertNull(holds.placeHold("bob", "train-1", 2, 3));
+        assertTrue(holds.isHeldByOther("TRAIN-1", 2, 3, "bob"));
+        assertFalse(holds.isHeldByOther("train-1", 2, 3, "alice"));
+        assertEquals(1, holds.heldSeatCount("train-1", "bob"));
+        assertEquals(1, holds.holdsOnTrain("TRAIN-1").size());
+    }
+
+    @Test
+    public void onlyTheOwnerCanReleaseAHold() {
+        SeatHold hold = holds.placeHold("alice", "T1", 1, 1);
+
+        assertNull(holds.releaseHold(hold.getHoldId(), "bob"));
+        assertNotNull(holds.releaseHold(hold.getHoldId(), "alice"));
+        assertNull(holds.getHold(hold.getHoldId()));
+        assertFalse(holds.isHeldByOther("T1", 1, 1, "bob"));
+    }
+
+    @Test
+    public void bookingAHeldSeatDirectlyUsesUpTheHold() {
+        SeatHold hold = holds.placeHold("alice", "T1", 1, 2);
+
+        assertNull(holds.releaseSeat("t1", 1, 2, "bob"));
+        assertEquals(hold.getHoldId(), holds.releaseSeat("t1", 1, 2, "alice").getHoldId());
+        assertNull(holds.getHold(hold.getHoldId()));
+        assertEquals(0, holds.heldSeatCount("T1", "bob"));
+        assertNull(holds.releaseSeat("T1", 1, 2, "alice"));
+    }
+
+    @Test
+    public void holdsExpireAfterTheirTtl() throws InterruptedException {
+        SeatHold hold = holds.placeHold("alice", "T1", 0, 0);
+
+        assertTrue("hold did not expire", expired.await(5, TimeUnit.SECONDS));
+        assertNull(holds.getHold(hold.getHoldId()));
+        assertFalse(holds.isHeldByOther("T1", 0, 0, "bob"));
+        assertNotNull(holds.placeHold("bob", "T1", 0, 0));
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.service;
+
+import org.example.entities.ArchivedTicket;
+import org.example.entities.Ticket;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.example.TestTrains.train;
+import static org.junit.Assert.*;
+
+public class TicketArchiveTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 5, 17);
+
+    private File archiveDir;
+
+    @Before
+    public void createArchiveDir() throws IOException {
+        archiveDir = Files.createTempDirectory("ticket-archive").toFile();
+    }
+
+    @After
+    public void deleteArchiveDir() throws IOException {
+        try (Stream<Path> files = Files.walk(archiveDir.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private static Ticket ticket(String ticketId, String dateOfTravel) {
+        return new Ticket(ticketId, "u1", "a", "b", dateOfTravel, train("T1", 2, "a", "b"));
+    }
+
+    @Test
+    public void aJourneyCountsAsTravelledTheDayAfterItsDate() {
+        assertTrue(TicketArchive.travelledBefore(ticket("t1", "2024-05-16"), TODAY));
+        assertFalse(TicketArchive.travelledBefore(ticket("t2", "2024-05-17"), TODAY));
+        assertFalse(TicketArchive.travelledBefore(ticket("t3", "2024-06-01"), TODAY));
+    }
+
+    @Test
+    public void bookingTimesOfOlderTicketsAreNotJourneyDates() {
+        assertFalse(TicketArchive.travelledBefore(ticket("t1", "2023-12-08T18:30:00Z"), TODAY));
+        assertFalse(TicketArchive.travelledBefore(ticket("t2", "2024-05-01T09:15:00"), TODAY));
+        assertFalse(TicketArchive.travelledBefore(ticket("t3", null), TODAY));
+        assertFalse(TicketArchive.travelledBefore(ticket("t4", "soon"), TODAY));
+    }
+
+    @Test
+    public void travelledTicketsAreFiledUnderTheMonthOfTheJourney() throws IOException {
+        TicketArchive archive = new TicketArchive(archiveDir);
+        archive.append(List.of(
+                new ArchivedTicket(ticket("t1", "2024-04-30"), ArchivedTicket.Status.TRAVELLED, 1L),
+                new ArchivedTicket(ticket("t2", "2024-05-02"), ArchivedTicket.Status.CANCELLED, 2L)));
+
+        assertTrue(new File(archiveDir, "2024-04").isDirectory());
+        assertTrue(new File(archiveDir, "2024-05").isDirectory());
+        List<ArchivedTicket> history = new TicketArchive(archiveDir).historyFor("u1");
+        assertEquals(2, history.size());
+        ArchivedTicket travelled = history.stream().filter(record -> record.getTicket().getTicketId().equals("t1"))
+                .findFirst().orElseThrow();
+        assertEquals(ArchivedTicket.Status.TRAVELLED, travelled.getStatus());
+        assertEquals("2024-04-30", travelled.getTicket().getDateOfTravel());
+    }
+}
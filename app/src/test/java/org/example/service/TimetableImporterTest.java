@@ -0,0 +1,166 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.entities.Train;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+// Imports into a TrainService backed by a temporary trains.json holding trains A and B
+public class TimetableImporterTest {
+
+    private static final String HEADER = "train_id,train_no,stop_sequence,station,departure_time";
+
+    private File dataDir;
+    private TrainService trainService;
+    private final List<String> removed = new ArrayList<>();
+
+    @Before
+    public void createCatalogue() throws IOException {
+        dataDir = Files.createTempDirectory("timetable-import").toFile();
+        List<Train> trains = new ArrayList<>();
+        trains.add(train("A", "x", "y"));
+        trains.add(train("B", "x", "z"));
+        trains.get(0).getSeats().get(0).set(1, 1); // A booked seat
+        File trainsFile = new File(dataDir, "trains.json");
+        new ObjectMapper().writeValue(trainsFile, trains);
+        trainService = new TrainService(trainsFile.getPath());
+        trainService.addTrainRemovalListener(removed::add);
+    }
+
+    @After
+    public void deleteDataDir() throws IOException {
+        try (Stream<Path> files = Files.walk(dataDir.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private static Train train(String trainId, String from, String to) {
+        List<List<Integer>> seats = new ArrayList<>();
+        seats.add(new ArrayList<>(List.of(0, 0)));
+        Map<String, String> times = new LinkedHashMap<>();
+        times.put(from, "10:00:00");
+        times.put(to, "11:00:00");
+        return new Train(trainId, "1", seats, times, List.of(from, to));
+    }
+
+    private TimetableImportResult importLines(TimetableImporter.Mode mode, List<String> lines) throws IOException {
+        File csv = new File(dataDir, "stop_times.csv");
+        List<String> content = new ArrayList<>();
+        content.add(HEADER);
+        content.addAll(lines);
+        Files.write(csv.toPath(), content, StandardCharsets.UTF_8);
+        return new TimetableImporter(trainService, 4, 2, 3).importFile(csv, mode);
+    }
+
+    @Test
+    public void csvFieldsMayBeQuotedEscapedOrEmpty() {
+        assertEquals(List.of("a", "b,c", "say \"hi\"", ""), TimetableImporter.parseCsvLine("a,\"b,c\",\"say \"\"hi\"\"\","));
+        assertEquals(List.of("", "", ""), TimetableImporter.parseCsvLine(",,"));
+        assertEquals(List.of(""), TimetableImporter.parseCsvLine(""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void anUnterminatedQuoteIsRejected() {
+        TimetableImporter.parseCsvLine("a,\"b");
+    }
+
+    @Test
+    public void timesArePaddedAndMayRunPastMidnight() {
+        assertEquals("07:05:00", TimetableImporter.normalizeTime("7:05"));
+        assertEquals("25:10:30", TimetableImporter.normalizeTime("25:10:30"));
+        for (String bad : List.of("", "48:00", "10:60", "10:00:60", "ten")) {
+            try {
+                TimetableImporter.normalizeTime(bad);
+                fail("Accepted '" + bad + "'");
+            } catch (IllegalArgumentException expected) {
+                // As it should be
+            }
+        }
+    }
+
+    @Test
+    public void mergeKeepsOtherTrainsAndTheSeatsOfRetimedOnes() throws IOException {
+        TimetableImportResult result = importLines(TimetableImporter.Mode.MERGE, List.of(
+                "a,1,1,X,9:00", "a,1,2,W,9:30", "a,1,3,Y,10:00",
+                "C,2,1,x,12:00", "C,2,2,z,13:00"));
+
+        assertEquals(2, result.getTrainsImported());
+        assertEquals(3, result.getCatalogueSize());
+        Train retimed = trainService.getTrainById("A");
+        assertEquals(List.of("x", "w", "y"), retimed.getStations());
+        assertEquals(Integer.valueOf(1), retimed.getSeats().get(0).get(1)); // The booking survives
+        assertNotNull(trainService.getTrainById("B"));
+        assertEquals(3, trainService.getTrainById("C").getSeats().get(0).size()); // New trains get 2x3
+        assertTrue(removed.isEmpty());
+    }
+
+    @Test
+    public void replaceDropsMissingTrainsAndReportsThem() throws IOException {
+        TimetableImportResult result = importLines(TimetableImporter.Mode.REPLACE, List.of(
+                "A,1,1,x,9:00", "A,1,2,y,10:00"));
+
+        assertEquals(1, result.getCatalogueSize());
+        assertNull(trainService.getTrainById("B"));
+        assertEquals(List.of("B"), removed);
+        assertTrue(trainService.removeTrain("a"));
+        assertEquals(List.of("B", "A"), removed);
+    }
+
+    @Test
+    public void replaceRefusesToDropTrainsInUseAndChangesNothing() throws IOException {
+        File csv = new File(dataDir, "stop_times.csv");
+        Files.write(csv.toPath(), List.of(HEADER, "C,2,1,x,12:00", "C,2,2,z,13:00"), StandardCharsets.UTF_8);
+
+        try {
+            new TimetableImporter(trainService, 4, 2, 3).importFile(csv, TimetableImporter.Mode.REPLACE,
+                    TimetableImporter::hasBookedSeats);
+            fail("Dropped train A with a booked seat");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().endsWith(": A")); // B has no bookings
+        }
+
+        assertNotNull(trainService.getTrainById("A"));
+        assertNotNull(trainService.getTrainById("B"));
+        assertNull(trainService.getTrainById("C"));
+        assertTrue(removed.isEmpty());
+    }
+
+    @Test
+    public void aBadRowRejectsItsTrainWhicheverWorkerSawIt() throws IOException {
+        // Over 2048 lines, so the rows of each train are spread across several batches and workers
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i <= 3000; i++) {
+            lines.add("LONG,9," + i + ",s" + i + ",10:00");
+            if (i == 10 || i == 2990) {
+                lines.add("BAD,8," + i + ",s" + i + "," + ((i == 2990) ? "99:00" : "10:00"));
+            }
+        }
+        lines.add("BAD,8,1,s1,10:00");
+        lines.add(",8,1,s1,10:00");
+
+        TimetableImportResult result = importLines(TimetableImporter.Mode.MERGE, lines);
+
+        assertEquals(1, result.getTrainsImported());
+        assertEquals(1, result.getTrainsRejected());
+        assertEquals(3000, trainService.getTrainById("long").getStations().size());
+        assertNull(trainService.getTrainById("bad"));
+        assertEquals(2, result.getErrors().size());
+        assertTrue(result.getErrors().contains("Line 3005: missing train ID"));
+        assertTrue(result.getErrors().stream().anyMatch(error -> error.contains("invalid time '99:00'")));
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.service;
+
+import org.example.entities.WaitlistEntry;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WaitlistServiceTest {
+
+    private final WaitlistService waitlist = new WaitlistService(releases -> {});
+
+    @After
+    public void shutdown() {
+        waitlist.shutdown();
+    }
+
+    @Test
+    public void aUserWaitsOnceForEachTrain() {
+        assertNotNull(waitlist.join("alice", "T1", "a", "c", 0));
+        assertNull(waitlist.join("alice", "t1", "a", "b", 0));
+        assertNull(waitlist.join("alice", "T1", "a", "c", 5));
+        assertNotNull(waitlist.join("alice", "T2", "a", "c", 0));
+        assertNotNull(waitlist.join("bob", "T1", "a", "c", 0));
+    }
+
+    @Test
+    public void aUserMayRejoinOncePromotedOrWithdrawn() {
+        WaitlistEntry entry = waitlist.join("alice", "T1", "a", "c", 0);
+        assertTrue(waitlist.withdraw(entry.getEntryId(), "alice"));
+        WaitlistEntry again = waitlist.join("alice", "T1", "a", "c", 0);
+        assertNotNull(again);
+
+        assertEquals(again.getEntryId(), waitlist.pollNext("T1").getEntryId());
+        assertNotNull(waitlist.join("alice", "T1", "a", "c", 0));
+    }
+
+    @Test
+    public void higherPriorityIsServedFirstThenArrivalOrder() {
+        WaitlistEntry first = waitlist.join("alice", "T1", "a", "c", 0);
+        WaitlistEntry second = waitlist.join("bob", "T1", "b", "c", 0);
+        WaitlistEntry urgent = waitlist.join("carol", "T1", "a", "b", 1);
+
+        assertEquals(1, waitlist.positionOf(urgent.getEntryId()));
+        assertEquals(3, waitlist.positionOf(second.getEntryId()));
+        assertEquals(urgent.getEntryId(), waitlist.pollNext("t1").getEntryId());
+        assertEquals(first.getEntryId(), waitlist.pollNext("t1").getEntryId());
+        assertEquals(second.getEntryId(), waitlist.pollNext("t1").getEntryId());
+        assertNull(waitlist.pollNext("t1"));
+        assertFalse(waitlist.hasWaiting("T1"));
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class ConsistentHashRingTest {
+
+    private static ConsistentHashRing<String> ring(String... nodes) {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(128, Function.identity());
+        for (String node : nodes) {
+            ring.addNode(node);
+        }
+        return ring;
+    }
+
+    private static Map<String, String> owners(ConsistentHashRing<String> ring, int keys) {
+        Map<String, String> owners = new HashMap<>();
+        for (int i = 0; i < keys; i++) {
+            owners.put("train-" + i, ring.nodeFor("train-" + i));
+        }
+        return owners;
+    }
+
+    @Test
+    public void anEmptyRingOwnsNothing() {
+        assertNull(ring().nodeFor("train-1"));
+    }
+
+    @Test
+    public void placementIsStableAcrossInstances() {
+        assertEquals(owners(ring("a:1", "b:2", "c:3"), 1000), owners(ring("c:3", "a:1", "b:2"), 1000));
+    }
+
+    @Test
+    public void addingANodeOnlyMovesKeysToThatNode() {
+        ConsistentHashRing<String> ring = ring("a:1", "b:2", "c:3");
+        Map<String, String> before = owners(ring, 1000);
+        ring.addNode("d:4");
+        Map<String, String> after = owners(ring, 1000);
+
+        int moved = 0;
+        for (Map.Entry<String, String> entry : after.entrySet()) {
+            if (!entry.getValue().equals(before.get(entry.getKey()))) {
+                assertEquals("d:4", entry.getValue());
+                moved++;
+            }
+        }
+        // About a quarter of the keys should move; allow for the spread of 128 virtual nodes
+        assertTrue("moved " + moved, moved > 150 && moved < 350);
+    }
+
+    @Test
+    public void removingANodeHandsItsKeysToTheOthers() {
+        ConsistentHashRing<String> ring = ring("a:1", "b:2", "c:3");
+        Map<String, String> before = owners(ring, 500);
+        ring.removeNode("b:2");
+
+        assertEquals(List.of("a:1", "c:3"), ring.getNodes());
+        for (Map.Entry<String, String> entry : owners(ring, 500).entrySet()) {
+            if (!before.get(entry.getKey()).equals("b:2")) {
+                assertEquals(before.get(entry.getKey()), entry.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void ownershipSharesCoverTheWholeRing() {
+        Map<String, Double> shares = ring("a:1", "b:2", "c:3", "d:4").ownership();
+        double total = 0;
+        for (double share : shares.values()) {
+            assertTrue(share > 0.15 && share < 0.35);
+            total += share;
+        }
+        assertEquals(1.0, total, 1e-9);
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+// Drives the wheel by hand through advanceTo; the ten-second tick keeps the background
+// ticker from firing while a test runs.
+public class HashedTimingWheelTest {
+
+    private static final long TICK_SECONDS = 10;
+
+    private final List<String> expired = new ArrayList<>();
+    private final HashedTimingWheel<String> wheel =
+            new HashedTimingWheel<>(TICK_SECONDS, TimeUnit.SECONDS, 4, expired::add);
+
+    @After
+    public void stopWheel() {
+        wheel.stop();
+    }
+
+    private static long secondsFromNow(long seconds) {
+        return System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+    }
+
+    @Test
+    public void expiresOnlyOnceTheDeadlineHasPassed() {
+        wheel.schedule("hold", 30, TimeUnit.SECONDS);
+        assertEquals(1, wheel.pendingCount());
+
+        wheel.advanceTo(secondsFromNow(15));
+        assertTrue(expired.isEmpty());
+
+        wheel.advanceTo(secondsFromNow(45));
+        assertEquals(List.of("hold"), expired);
+        assertEquals(0, wheel.pendingCount());
+    }
+
+    @Test
+    public void timeoutsBeyondOneRotationWaitForTheirRound() {
+        // Four buckets of ten seconds: a 100 second timeout goes round the wheel twice first
+        wheel.schedule("late", 100, TimeUnit.SECONDS);
+        wheel.schedule("early", 20, TimeUnit.SECONDS);
+
+        wheel.advanceTo(secondsFromNow(65));
+        assertEquals(List.of("early"), expired);
+
+        wheel.advanceTo(secondsFromNow(125));
+        assertEquals(List.of("early", "late"), expired);
+    }
+
+    @Test
+    public void cancelledTimeoutsNeverFire() {
+        HashedTimingWheel.Timeout<String> timeout = wheel.schedule("released", 20, TimeUnit.SECONDS);
+        wheel.schedule("kept", 20, TimeUnit.SECONDS);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertEquals(1, wheel.pendingCount());
+
+        wheel.advanceTo(secondsFromNow(45));
+        assertEquals(List.of("kept"), expired);
+    }
+
+    @Test
+    public void callbacksMayScheduleNewTimeouts() {
+        AtomicReference<HashedTimingWheel<String>> holder = new AtomicReference<>();
+        List<String> fired = new ArrayList<>();
+        holder.set(new HashedTimingWheel<>(TICK_SECONDS, TimeUnit.SECONDS, 4, payload -> {
+            fired.add(payload);
+            if (payload.equals("first")) {
+                holder.get().schedule("second", 10, TimeUnit.SECONDS);
+            }
+        }));
+        try {
+            holder.get().schedule("first", 10, TimeUnit.SECONDS);
+            holder.get().advanceTo(secondsFromNow(25));
+            assertEquals(List.of("first"), fired);
+            assertEquals(1, holder.get().pendingCount());
+        } finally {
+            holder.get().stop();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelJsonArrayLoaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("loader", ".json");
+    }
+
+    @After
+    public void cleanUp() {
+        pool.shutdown();
+        file.delete();
+    }
+
+    private ParallelJsonArrayLoader<Integer> loader(int chunkSize) {
+        return new ParallelJsonArrayLoader<>(objectMapper, Integer.class, pool, chunkSize);
+    }
+
+    @Test
+    public void keepsFileOrderAcrossChunks() throws IOException {
+        List<Integer> numbers = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            numbers.add(i);
+        }
+        objectMapper.writeValue(file, numbers);
+
+        Map<Integer, List<Integer>> chunks = new ConcurrentSkipListMap<>();
+        List<Integer> loaded = loader(64).load(file, (chunk, index) -> chunks.put(index, chunk));
+
+        assertEquals(numbers, loaded);
+        assertEquals(16, chunks.size()); // 15 full chunks and a last one of 40
+        assertEquals(Integer.valueOf(64), chunks.get(1).get(0));
+        assertEquals(40, chunks.get(15).size());
+    }
+
+    @Test
+    public void emptyFilesAndArraysLoadAsEmptyLists() throws IOException {
+        assertTrue(loader(8).load(file, (chunk, index) -> fail("no chunks expected")).isEmpty());
+
+        Files.write(file.toPath(), "[]".getBytes(StandardCharsets.UTF_8));
+        assertTrue(loader(8).load(file, (chunk, index) -> fail("no chunks expected")).isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAnythingButAnArray() throws IOException {
+        Files.write(file.toPath(), "{\"a\": 1}".getBytes(StandardCharsets.UTF_8));
+        loader(8).load(file, (chunk, index) -> {});
+    }
+
+    @Test(expected = IOException.class)
+    public void bindingErrorsSurfaceAsIOException() throws IOException {
+        Files.write(file.toPath(), "[1, 2, \"three\"]".getBytes(StandardCharsets.UTF_8));
+        loader(2).load(file, (chunk, index) -> {});
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SeatMapCodecTest {
+
+    private static List<List<Integer>> seats(int rows, int cols) {
+        List<List<Integer>> seats = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            seats.add(new ArrayList<>(Collections.nCopies(cols, 0)));
+        }
+        return seats;
+    }
+
+    private static void assertRejected(String encoded) {
+        try {
+            SeatMapCodec.decode(encoded);
+            fail("Decoded '" + encoded + "'");
+        } catch (IOException expected) {
+            // As it should be
+        }
+    }
+
+    @Test
+    public void anEmptyTrainIsOneRun() throws IOException {
+        assertEquals("4x6:ABg", SeatMapCodec.encode(seats(4, 6)));
+        assertEquals(seats(4, 6), SeatMapCodec.decode("4x6:ABg"));
+    }
+
+    @Test
+    public void mixedAndLongRunsRoundTrip() throws IOException {
+        List<List<Integer>> seats = seats(300, 40); // Runs longer than one varint byte
+        seats.get(0).set(0, 1);
+        seats.get(0).set(1, 2);
+        seats.get(150).set(39, 255);
+        seats.get(299).set(39, 1);
+
+        List<List<Integer>> decoded = SeatMapCodec.decode(SeatMapCodec.encode(seats));
+        assertEquals(seats, decoded);
+        decoded.get(0).set(2, 1); // Bookings update the decoded map in place
+        assertEquals(0, SeatMapCodec.decode("0x0:").size());
+        assertEquals(3, SeatMapCodec.decode("3x0:").size());
+    }
+
+    @Test
+    public void mapsThatCantBeRunLengthEncodedAreLeftAlone() {
+        List<List<Integer>> ragged = seats(2, 3);
+        ragged.get(1).remove(0);
+        assertNull(SeatMapCodec.encode(ragged));
+        List<List<Integer>> outOfRange = seats(1, 1);
+        outOfRange.get(0).set(0, 256);
+        assertNull(SeatMapCodec.encode(outOfRange));
+    }
+
+    @Test
+    public void malformedMapsAreRejected() {
+        assertRejected("4x6");
+        assertRejected("ax6:ABg");
+        assertRejected("4x6:!!");
+        assertRejected("4x6:AB");    // Fewer seats than the header says
+        assertRejected("4x5:ABg");   // More seats than the header says
+        assertRejected("4x6:AA");    // Run length cut short
+        assertRejected("4x6:AP____8P"); // Run length longer than any int
+    }
+
+    @Test
+    public void aHugeOrNegativeHeaderFailsBeforeAllocating() {
+        assertRejected("2147483647x1:ABg");
+        assertRejected("1x2147483647:ABg");
+        assertRejected("2147483647x0:");
+        assertRejected("1001x1000:ABg");
+        assertRejected("-1x6:ABg");
+        assertRejected("4x-6:ABg");
+    }
+}
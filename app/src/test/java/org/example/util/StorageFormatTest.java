@@ -0,0 +1,47 @@
+package org.example.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StorageFormatTest {
+
+    @After
+    public void clearProperties() {
+        System.clearProperty("booking.format");
+        System.clearProperty("booking.format.users");
+        System.clearProperty("booking.format.archive");
+    }
+
+    @Test
+    public void targetsDefaultToJsonAndMayBeSetOneByOne() {
+        System.setProperty("booking.format.users", "compact_json");
+
+        assertEquals(StorageFormat.COMPACT_JSON, StorageFormat.forTarget("users"));
+        assertEquals(StorageFormat.JSON, StorageFormat.forTarget("trains"));
+    }
+
+    @Test
+    public void theArchiveMayBeBinary() {
+        System.setProperty("booking.format.archive", "BINARY");
+
+        assertEquals(StorageFormat.BINARY, StorageFormat.forTarget("archive"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void binaryIsRejectedForOtherTargets() {
+        System.setProperty("booking.format.users", "BINARY");
+
+        StorageFormat.forTarget("users");
+    }
+
+    @Test
+    public void aGlobalBinaryFormatLeavesTheOtherTargetsCompact() {
+        System.setProperty("booking.format", "BINARY");
+
+        assertEquals(StorageFormat.BINARY, StorageFormat.forTarget("archive"));
+        assertEquals(StorageFormat.COMPACT_JSON, StorageFormat.forTarget("users"));
+        assertEquals(StorageFormat.COMPACT_JSON, StorageFormat.forTarget("cluster"));
+    }
+}
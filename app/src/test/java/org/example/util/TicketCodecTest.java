@@ -0,0 +1,83 @@
+package org.example.util;
+
+import org.example.entities.ArchivedTicket;
+import org.example.entities.Ticket;
+import org.example.entities.Train;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TicketCodecTest {
+
+    private static byte[] write(ArchivedTicket... records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (ArchivedTicket record : records) {
+                TicketCodec.writeArchived(out, record);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ArchivedTicket booked() {
+        Map<String, String> times = new LinkedHashMap<>();
+        times.put("bangalore", "09:00:00");
+        times.put("jaipur", "21:30:00");
+        Train train = new Train("bacs", "12345", null, times, List.of("bangalore", "jaipur"));
+        Ticket ticket = new Ticket("t1", "u1", "bangalore", "jaipur", "2024-05-01T10:15:30", train);
+        ticket.setSeatRow(2);
+        ticket.setSeatCol(3);
+        return new ArchivedTicket(ticket, ArchivedTicket.Status.CANCELLED, 1714558530000L);
+    }
+
+    @Test
+    public void archivedTicketsRoundTrip() throws IOException {
+        ArchivedTicket bare = new ArchivedTicket(new Ticket("t2", "u1", null, null, null, null), null, 0);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(write(booked(), bare)));
+
+        ArchivedTicket first = TicketCodec.readArchived(in);
+        assertEquals(ArchivedTicket.Status.CANCELLED, first.getStatus());
+        assertEquals(1714558530000L, first.getArchivedAt());
+        Ticket ticket = first.getTicket();
+        assertEquals("t1", ticket.getTicketId());
+        assertEquals("u1", ticket.getUserId());
+        assertEquals("bangalore", ticket.getSource());
+        assertEquals("jaipur", ticket.getDestination());
+        assertEquals("2024-05-01T10:15:30", ticket.getDateOfTravel());
+        assertEquals(Integer.valueOf(2), ticket.getSeatRow());
+        assertEquals(Integer.valueOf(3), ticket.getSeatCol());
+        assertEquals("bacs", ticket.getTrain().getTrainId());
+        assertEquals("12345", ticket.getTrain().getTrainNo());
+        assertEquals(List.of("bangalore", "jaipur"), ticket.getTrain().getStations());
+        assertEquals(booked().getTicket().getTrain().getStationTimes(), ticket.getTrain().getStationTimes());
+        assertTrue(ticket.getTrain().getSeats().isEmpty()); // Seat maps are not part of a record
+
+        ArchivedTicket second = TicketCodec.readArchived(in);
+        assertNull(second.getStatus());
+        assertNull(second.getTicket().getSource());
+        assertNull(second.getTicket().getSeatRow());
+        assertNull(second.getTicket().getTrain());
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    public void recordsStartWithTheVersion() throws IOException {
+        assertEquals(TicketCodec.VERSION, write(booked())[0]);
+    }
+
+    @Test(expected = IOException.class)
+    public void anUnknownVersionIsRejected() throws IOException {
+        byte[] bytes = write(booked());
+        bytes[0] = (byte) (TicketCodec.VERSION + 1);
+        TicketCodec.readArchived(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketTest {
+
+    @Test
+    public void allowsTheBurstThenAsksTheCallerToWait() {
+        TokenBucket bucket = new TokenBucket(2, 0.001); // Practically no refill during the test
+        assertEquals(0, bucket.tryConsume());
+        assertEquals(0, bucket.tryConsume());
+        assertTrue(bucket.tryConsume() > 0);
+    }
+
+    @Test
+    public void isFullOnlyUntilATokenIsTaken() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 50);
+        assertTrue(bucket.isFull());
+        bucket.tryConsume();
+        assertFalse(bucket.isFull());
+
+        Thread.sleep(100); // Five tokens' worth of refill, capped at the capacity of one
+        assertTrue(bucket.isFull());
+    }
+}